@@ -17,24 +17,28 @@ package org.springframework.samples.petclinic.api;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
 import io.github.resilience4j.timelimiter.TimeLimiterConfig;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JCircuitBreakerFactory;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigBuilder;
 import org.springframework.cloud.client.circuitbreaker.Customizer;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.client.loadbalancer.LoadBalanced;
 import org.springframework.context.annotation.Bean;
-import org.springframework.core.io.ClassPathResource;
-import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.samples.petclinic.api.boundary.web.StaticAssets;
+import org.springframework.samples.petclinic.api.system.ApiGatewayProperties;
 import org.springframework.web.client.RestTemplate;
 import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.reactive.function.server.RequestPredicates;
 import org.springframework.web.reactive.function.server.RouterFunction;
 import org.springframework.web.reactive.function.server.RouterFunctions;
 import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
 
 import java.time.Duration;
 
@@ -44,6 +48,7 @@ import java.time.Duration;
  */
 @EnableDiscoveryClient
 @SpringBootApplication
+@EnableConfigurationProperties(ApiGatewayProperties.class)
 public class ApiGatewayApplication {
 
     public static void main(String[] args) {
@@ -56,29 +61,49 @@ public class ApiGatewayApplication {
         return new RestTemplate();
     }
 
+    /**
+     * Connection pool of the backend service clients, with its gauges published through Micrometer
+     */
+    @Bean(destroyMethod = "dispose")
+    ConnectionProvider serviceClientsConnectionProvider(ApiGatewayProperties properties) {
+        ApiGatewayProperties.Pool pool = properties.pool();
+        return ConnectionProvider.builder("service-clients")
+            .maxConnections(pool.maxConnections())
+            .pendingAcquireMaxCount(pool.pendingAcquireMaxCount())
+            .pendingAcquireTimeout(pool.pendingAcquireTimeout())
+            .maxIdleTime(pool.maxIdleTime())
+            .maxLifeTime(pool.maxLifeTime())
+            .evictInBackground(pool.evictionInterval())
+            .metrics(true)
+            .build();
+    }
+
     @Bean
     @LoadBalanced
-    public WebClient.Builder loadBalancedWebClientBuilder() {
-        return WebClient.builder();
+    public WebClient.Builder loadBalancedWebClientBuilder(ConnectionProvider serviceClientsConnectionProvider) {
+        return WebClient.builder()
+            .clientConnector(new ReactorClientHttpConnector(HttpClient.create(serviceClientsConnectionProvider)));
     }
 
-    @Value("classpath:/static/index.html")
-    private Resource indexHtml;
-
     /**
-     * workaround solution for forwarding to index.html
+     * Serves the fingerprinted and precompressed static assets, and index.html as the welcome page: a workaround
+     * solution for forwarding to index.html
      * @see <a href="https://github.com/spring-projects/spring-boot/issues/9785">#9785</a>
      */
     @Bean
     RouterFunction<?> routerFunction() {
-        RouterFunction router = RouterFunctions.resources("/**", new ClassPathResource("static/"))
-            .andRoute(RequestPredicates.GET("/"),
-                request -> ServerResponse.ok().contentType(MediaType.TEXT_HTML).bodyValue(indexHtml));
+        StaticAssets staticAssets = new StaticAssets();
+        RouterFunction router = RouterFunctions.resources(staticAssets::lookup, staticAssets::addHeaders)
+            .andRoute(RequestPredicates.GET("/"), request -> ServerResponse.ok()
+                .contentType(MediaType.TEXT_HTML)
+                .cacheControl(CacheControl.noCache())
+                .bodyValue(staticAssets.indexHtml()));
         return router;
     }
 
     /**
-     * Default Resilience4j circuit breaker configuration
+     * Default Resilience4j circuit breaker configuration, for the circuit breakers without a
+     * {@code resilience4j.*.instances} configuration
      */
     @Bean
     public Customizer<ReactiveResilience4JCircuitBreakerFactory> defaultCustomizer() {
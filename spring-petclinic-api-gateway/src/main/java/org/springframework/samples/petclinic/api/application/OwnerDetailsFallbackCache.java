@@ -0,0 +1,54 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.system.ApiGatewayProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Last known good {@link OwnerDetails}, only read when the customers or visits service is failing, slow
+ * or behind an open circuit breaker.
+ */
+@Component
+public class OwnerDetailsFallbackCache {
+
+    private final Cache<Integer, OwnerDetails> ownerDetails;
+
+    public OwnerDetailsFallbackCache(ApiGatewayProperties properties, MeterRegistry meterRegistry) {
+        ApiGatewayProperties.FallbackCache fallbackCache = properties.fallbackCache();
+        this.ownerDetails = Caffeine.newBuilder()
+            .maximumSize(fallbackCache.maxSize())
+            .expireAfterWrite(fallbackCache.ttl())
+            .recordStats()
+            .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, ownerDetails, "ownerDetailsFallback");
+    }
+
+    public void put(OwnerDetails owner) {
+        ownerDetails.put(owner.id(), owner);
+    }
+
+    public Optional<OwnerDetails> get(int ownerId) {
+        return Optional.ofNullable(ownerDetails.getIfPresent(ownerId));
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of keyed {@link Mono} calls: concurrent callers asking for the same key
+ * while a call is in flight share its result instead of triggering their own downstream requests.
+ * <p>
+ * Nothing is cached once the shared call terminates, so a request arriving after completion always
+ * starts a fresh call.
+ */
+public class RequestCoalescer<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final Counter started;
+
+    private final Counter merged;
+
+    public RequestCoalescer(String name, MeterRegistry registry) {
+        this.started = Counter.builder("petclinic.gateway.coalesced.requests")
+            .description("Calls issued or joined through request coalescing")
+            .tag("name", name)
+            .tag("outcome", "started")
+            .register(registry);
+        this.merged = Counter.builder("petclinic.gateway.coalesced.requests")
+            .description("Calls issued or joined through request coalescing")
+            .tag("name", name)
+            .tag("outcome", "merged")
+            .register(registry);
+    }
+
+    /**
+     * Returns the in-flight call for {@code key} if there is one, otherwise subscribes to the {@code loader} result
+     * and shares it with every caller arriving before it terminates.
+     */
+    public Mono<V> execute(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> created = new AtomicReference<>();
+            Mono<V> call = inFlight.computeIfAbsent(key, k -> {
+                Mono<V> shared = Mono.defer(loader)
+                    .doFinally(signal -> inFlight.remove(k, created.get()))
+                    .share();
+                created.set(shared);
+                return shared;
+            });
+            if (call == created.get()) {
+                started.increment();
+            } else {
+                merged.increment();
+            }
+            return call;
+        });
+    }
+
+    int inFlightCount() {
+        return inFlight.size();
+    }
+}
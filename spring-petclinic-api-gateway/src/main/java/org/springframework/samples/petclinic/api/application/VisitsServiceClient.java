@@ -15,12 +15,20 @@
  */
 package org.springframework.samples.petclinic.api.application;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.ApiGatewayProperties;
 import org.springframework.stereotype.Component;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import static java.util.stream.Collectors.joining;
 
@@ -33,22 +41,76 @@ public class VisitsServiceClient {
     // Could be changed for testing purpose
     private String hostname = "http://visits-service/";
 
-    private final WebClient.Builder webClientBuilder;
+    private final WebClient webClient;
 
-    public VisitsServiceClient(WebClient.Builder webClientBuilder) {
-        this.webClientBuilder = webClientBuilder;
+    private final Duration hedgeDelay;
+
+    private final Period history;
+
+    private final int limitPerPet;
+
+    private final Counter calls;
+
+    private final Counter hedges;
+
+    private final Counter hedgeWins;
+
+    public VisitsServiceClient(WebClient.Builder webClientBuilder, ApiGatewayProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.webClient = webClientBuilder.build();
+        this.hedgeDelay = properties.hedging().visitsDelay();
+        this.history = properties.ownerVisits().history();
+        this.limitPerPet = properties.ownerVisits().limitPerPet();
+        this.calls = hedgingCounter("call", meterRegistry);
+        this.hedges = hedgingCounter("hedge", meterRegistry);
+        this.hedgeWins = hedgingCounter("hedge_win", meterRegistry);
     }
 
+    /**
+     * Read the most recent visits of the pets, as configured by {@link ApiGatewayProperties.OwnerVisits}.
+     * <p>
+     * When hedging is enabled, a second request is sent if no response arrived after the hedging delay. The load
+     * balancer sends it to the next instance, and whichever request answers first wins while the other is cancelled.
+     */
     public Mono<Visits> getVisitsForPets(final List<Integer> petIds) {
-        return webClientBuilder.build()
+        if (hedgeDelay == null) {
+            return fetchVisitsForPets(petIds);
+        }
+        Mono<Visits> hedge = Mono.delay(hedgeDelay)
+            .then(Mono.defer(() -> {
+                hedges.increment();
+                return fetchVisitsForPets(petIds);
+            }))
+            .doOnNext(visits -> hedgeWins.increment());
+        return Mono.firstWithValue(fetchVisitsForPets(petIds), hedge)
+            .doOnSubscribe(subscription -> calls.increment());
+    }
+
+    private Mono<Visits> fetchVisitsForPets(List<Integer> petIds) {
+        return webClient
             .get()
-            .uri(hostname + "pets/visits?petId={petId}", joinIds(petIds))
+            .uri(hostname + "pets/visits?petId={petId}&limit={limit}" + (history == null ? "" : "&from={from}"),
+                uriVariables(petIds))
             .retrieve()
             .bodyToMono(Visits.class);
     }
 
-    private String joinIds(List<Integer> petIds) {
-        return petIds.stream().map(Object::toString).collect(joining(","));
+    private Map<String, Object> uriVariables(List<Integer> petIds) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("petId", petIds.stream().map(Object::toString).collect(joining(",")));
+        variables.put("limit", limitPerPet);
+        if (history != null) {
+            variables.put("from", LocalDate.now().minus(history));
+        }
+        return variables;
+    }
+
+    private static Counter hedgingCounter(String event, MeterRegistry meterRegistry) {
+        return Counter.builder("petclinic.gateway.hedging")
+            .description("Hedged visits-service reads: calls, hedge requests sent and hedge requests answering first")
+            .tag("name", "visits-service")
+            .tag("event", event)
+            .register(meterRegistry);
     }
 
     void setHostname(String hostname) {
@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Concurrency limit adjusted with an AIMD (additive increase, multiplicative decrease) algorithm.
+ * <p>
+ * Each request completing within the latency threshold while the limit is in use raises the limit by one.
+ * Each request failing or exceeding the threshold multiplies the limit by the backoff ratio. The limit therefore
+ * settles around the concurrency the backend can serve within the threshold.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+
+    private final int maxLimit;
+
+    private final long latencyThresholdNanos;
+
+    private final double backoffRatio;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    private volatile double limit;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, long latencyThresholdNanos,
+                               double backoffRatio) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = latencyThresholdNanos;
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * @return {@code true} if the request may proceed, in which case {@link #onSuccess(long)},
+     * {@link #onFailure()}, {@link #onCancel(long)} or {@link #onIgnore()} must be called once it completes
+     */
+    boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    void onSuccess(long latencyNanos) {
+        int current = inFlight.getAndDecrement();
+        if (latencyNanos > latencyThresholdNanos) {
+            decrease();
+        } else if (current * 2 >= getLimit()) {
+            // Only grow while the limit is actually being used, not when the route is idle
+            increase();
+        }
+    }
+
+    void onFailure() {
+        inFlight.decrementAndGet();
+        decrease();
+    }
+
+    /**
+     * Releases a cancelled request. Past the latency threshold the cancellation is most likely a timeout of the
+     * circuit breaker wrapping the route, the strongest overload signal, and lowers the limit like a failure.
+     * Earlier, e.g. a client going away, it tells nothing about the backend capacity.
+     */
+    void onCancel(long elapsedNanos) {
+        if (elapsedNanos > latencyThresholdNanos) {
+            onFailure();
+        } else {
+            onIgnore();
+        }
+    }
+
+    /**
+     * Releases a request that tells nothing about the backend capacity.
+     */
+    void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    int getLimit() {
+        return (int) limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private synchronized void increase() {
+        limit = Math.min(maxLimit, limit + 1);
+    }
+
+    private synchronized void decrease() {
+        limit = Math.max(minLimit, limit * backoffRatio);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.filter;
+
+import org.reactivestreams.Publisher;
+import org.springframework.cloud.gateway.filter.GatewayFilter;
+import org.springframework.cloud.gateway.filter.NettyWriteResponseFilter;
+import org.springframework.cloud.gateway.filter.OrderedGatewayFilter;
+import org.springframework.cloud.gateway.filter.factory.AbstractGatewayFilterFactory;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Adds a strong {@code ETag} to the successful GET responses of a route and answers a matching
+ * {@code If-None-Match} with a bodiless 304, so that clients re-reading unchanged data do not download it again.
+ * <p>
+ * Like Spring's {@code ShallowEtagHeaderFilter}, the tag is a hash of the response body; an {@code ETag} already set
+ * by the backend is kept as is. The filter orders right before {@link NettyWriteResponseFilter}, whatever the route
+ * order, so that the proxied body is written through its response decorator.
+ * <p>
+ * Hashing needs the whole body in memory: streamed responses ({@code application/x-ndjson},
+ * {@code text/event-stream}), responses without a {@code Content-Length} and responses larger than
+ * {@link Config#getMaxBodySize() maxBodySize} are passed through untouched, without an {@code ETag}.
+ */
+@Component
+public class ConditionalGetGatewayFilterFactory
+    extends AbstractGatewayFilterFactory<ConditionalGetGatewayFilterFactory.Config> {
+
+    private static final List<MediaType> STREAMING_TYPES =
+        List.of(MediaType.APPLICATION_NDJSON, MediaType.TEXT_EVENT_STREAM);
+
+    public ConditionalGetGatewayFilterFactory() {
+        super(Config.class);
+    }
+
+    @Override
+    public GatewayFilter apply(Config config) {
+        int maxBytes = Math.toIntExact(config.getMaxBodySize().toBytes());
+        GatewayFilter filter = (exchange, chain) -> {
+            if (exchange.getRequest().getMethod() != HttpMethod.GET) {
+                return chain.filter(exchange);
+            }
+            ServerHttpResponse response = new ConditionalGetResponse(exchange, maxBytes);
+            return chain.filter(exchange.mutate().response(response).build());
+        };
+        return new OrderedGatewayFilter(filter, NettyWriteResponseFilter.WRITE_RESPONSE_FILTER_ORDER - 1);
+    }
+
+    private static class ConditionalGetResponse extends ServerHttpResponseDecorator {
+
+        private final ServerWebExchange exchange;
+
+        private final int maxBytes;
+
+        ConditionalGetResponse(ServerWebExchange exchange, int maxBytes) {
+            super(exchange.getResponse());
+            this.exchange = exchange;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            if (!isTaggable()) {
+                return super.writeWith(body);
+            }
+            // The limit only guards against a body longer than its Content-Length
+            return DataBufferUtils.join(body, maxBytes).flatMap(content -> {
+                String etag = getHeaders().getETag();
+                if (etag == null) {
+                    etag = etagOf(content);
+                }
+                // Sets the ETag header, and the 304 status when If-None-Match matches it
+                if (exchange.checkNotModified(etag)) {
+                    DataBufferUtils.release(content);
+                    getHeaders().remove(HttpHeaders.CONTENT_LENGTH);
+                    return getDelegate().setComplete();
+                }
+                return super.writeWith(Mono.just(content));
+            });
+        }
+
+        private boolean isTaggable() {
+            if (getStatusCode() != HttpStatus.OK) {
+                return false;
+            }
+            MediaType contentType = getHeaders().getContentType();
+            if (contentType != null && STREAMING_TYPES.stream().anyMatch(contentType::isCompatibleWith)) {
+                return false;
+            }
+            long contentLength = getHeaders().getContentLength();
+            return contentLength >= 0 && contentLength <= maxBytes;
+        }
+
+        private static String etagOf(DataBuffer content) {
+            MessageDigest digest = sha256();
+            try (DataBuffer.ByteBufferIterator buffers = content.readableByteBuffers()) {
+                while (buffers.hasNext()) {
+                    ByteBuffer buffer = buffers.next();
+                    digest.update(buffer);
+                }
+            }
+            return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+        }
+
+        private static MessageDigest sha256() {
+            try {
+                return MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException ex) {
+                throw new IllegalStateException("SHA-256 is not available", ex);
+            }
+        }
+    }
+
+    public static class Config {
+
+        private DataSize maxBodySize = DataSize.ofKilobytes(256);
+
+        public DataSize getMaxBodySize() {
+            return maxBodySize;
+        }
+
+        public void setMaxBodySize(DataSize maxBodySize) {
+            this.maxBodySize = maxBodySize;
+        }
+    }
+}
@@ -15,18 +15,35 @@
  */
 package org.springframework.samples.petclinic.api.boundary.web;
 
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.reactor.bulkhead.operator.BulkheadOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreaker;
 import org.springframework.cloud.client.circuitbreaker.ReactiveCircuitBreakerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.samples.petclinic.api.application.CustomersServiceClient;
+import org.springframework.samples.petclinic.api.application.OwnerDetailsFallbackCache;
+import org.springframework.samples.petclinic.api.application.PetVisitsIndex;
+import org.springframework.samples.petclinic.api.application.RequestCoalescer;
 import org.springframework.samples.petclinic.api.application.VisitsServiceClient;
 import org.springframework.samples.petclinic.api.dto.OwnerDetails;
 import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.ApiGatewayProperties;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.function.Function;
 
@@ -37,47 +54,155 @@ import java.util.function.Function;
 @RequestMapping("/api/gateway")
 public class ApiGatewayController {
 
+    private static final Logger log = LoggerFactory.getLogger(ApiGatewayController.class);
+
+    private static final String CUSTOMERS_SERVICE = "customers-service";
+
+    private static final String VISITS_SERVICE = "visits-service";
+
+    private static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final CustomersServiceClient customersServiceClient;
 
     private final VisitsServiceClient visitsServiceClient;
 
     private final ReactiveCircuitBreakerFactory cbFactory;
 
+    private final BulkheadRegistry bulkheadRegistry;
+
+    private final ApiGatewayProperties.Bulk bulk;
+
+    private final OwnerDetailsFallbackCache fallbackCache;
+
+    private final RequestCoalescer<Integer, OwnerDetailsResult> ownerDetailsRequests;
+
     public ApiGatewayController(CustomersServiceClient customersServiceClient,
                                 VisitsServiceClient visitsServiceClient,
-                                ReactiveCircuitBreakerFactory cbFactory) {
+                                ReactiveCircuitBreakerFactory cbFactory,
+                                BulkheadRegistry bulkheadRegistry,
+                                OwnerDetailsFallbackCache fallbackCache,
+                                ApiGatewayProperties properties,
+                                MeterRegistry meterRegistry) {
         this.customersServiceClient = customersServiceClient;
         this.visitsServiceClient = visitsServiceClient;
         this.cbFactory = cbFactory;
+        this.bulkheadRegistry = bulkheadRegistry;
+        this.fallbackCache = fallbackCache;
+        this.bulk = properties.bulk();
+        this.ownerDetailsRequests = new RequestCoalescer<>("ownerDetails", meterRegistry);
     }
 
+    /**
+     * Concurrent requests for the same owner share a single pair of customers/visits calls.
+     * <p>
+     * When either service fails, the last known good details of the owner are returned instead, flagged with a
+     * {@code Warning: 110} response header.
+     */
     @GetMapping(value = "owners/{ownerId}")
-    public Mono<OwnerDetails> getOwnerDetails(final @PathVariable int ownerId) {
+    public Mono<OwnerDetails> getOwnerDetails(final @PathVariable int ownerId, ServerHttpResponse response) {
+        return ownerDetailsRequests.execute(ownerId, () -> fetchOwnerDetails(ownerId))
+            .doOnNext(result -> {
+                if (result.stale()) {
+                    response.getHeaders().add(HttpHeaders.WARNING, STALE_WARNING);
+                }
+            })
+            .map(OwnerDetailsResult::owner);
+    }
+
+    /**
+     * Bulk variant of {@link #getOwnerDetails(int, ServerHttpResponse)}: owners are fetched in chunks and each chunk needs a single
+     * visits-service call. Owners are emitted chunk by chunk as soon as they are complete, not in request order.
+     * Owners that cannot be fetched, e.g. unknown ids, are left out rather than failing the whole response.
+     */
+    @GetMapping(value = "owners", produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+    public Flux<OwnerDetails> getOwnersDetails(final @RequestParam("ids") List<Integer> ownerIds) {
+        LinkedHashSet<Integer> distinctIds = new LinkedHashSet<>(ownerIds);
+        if (distinctIds.size() > bulk.maxIds()) {
+            return Flux.error(new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "At most " + bulk.maxIds() + " owner ids can be requested at once"));
+        }
+        return Flux.fromIterable(distinctIds)
+            .buffer(bulk.chunkSize())
+            .flatMap(this::fetchOwnersDetails, bulk.chunkConcurrency());
+    }
+
+    private Mono<OwnerDetailsResult> fetchOwnerDetails(int ownerId) {
         return customersServiceClient.getOwner(ownerId)
+            .transform(isolated(CUSTOMERS_SERVICE))
             .flatMap(owner ->
                 visitsServiceClient.getVisitsForPets(owner.getPetIds())
-                    .transform(it -> {
-                        ReactiveCircuitBreaker cb = cbFactory.create("getOwnerDetails");
-                        return cb.run(it, throwable -> emptyVisitsForPets());
-                    })
+                    .transform(isolated(VISITS_SERVICE))
                     .map(addVisitsToOwner(owner))
-            );
+                    .doOnNext(fallbackCache::put)
+                    .map(OwnerDetailsResult::fresh)
+                    .onErrorResume(throwable -> staleOwnerDetails(ownerId)
+                        .defaultIfEmpty(OwnerDetailsResult.fresh(owner)))
+            )
+            .onErrorResume(throwable -> staleOwnerDetails(ownerId)
+                .switchIfEmpty(Mono.error(throwable)));
+    }
 
+    private Mono<OwnerDetailsResult> staleOwnerDetails(int ownerId) {
+        return Mono.justOrEmpty(fallbackCache.get(ownerId))
+            .map(OwnerDetailsResult::stale);
     }
 
-    private Function<Visits, OwnerDetails> addVisitsToOwner(OwnerDetails owner) {
-        return visits -> {
-            owner.pets()
-                .forEach(pet -> pet.visits()
-                    .addAll(visits.items().stream()
-                        .filter(v -> v.petId() == pet.id())
-                        .toList())
-                );
-            return owner;
+    private Flux<OwnerDetails> fetchOwnersDetails(List<Integer> ownerIds) {
+        return Flux.fromIterable(ownerIds)
+            .flatMap(ownerId -> customersServiceClient.getOwner(ownerId)
+                .transform(isolated(CUSTOMERS_SERVICE))
+                .onErrorResume(throwable -> {
+                    log.warn("Leaving out owner {} from the bulk response: {}", ownerId, throwable.toString());
+                    return Mono.empty();
+                }), bulk.ownerConcurrency())
+            .collectList()
+            .filter(owners -> !owners.isEmpty())
+            .flatMapMany(owners -> {
+                List<Integer> petIds = owners.stream()
+                    .flatMap(owner -> owner.getPetIds().stream())
+                    .toList();
+                Mono<Visits> visits = petIds.isEmpty() ? Mono.just(new Visits()) : getVisitsForPets(petIds);
+                return visits.flatMapIterable(it -> {
+                    PetVisitsIndex index = PetVisitsIndex.of(it);
+                    owners.forEach(index::addVisitsTo);
+                    return owners;
+                });
+            });
+    }
+
+    private Mono<Visits> getVisitsForPets(List<Integer> petIds) {
+        return visitsServiceClient.getVisitsForPets(petIds)
+            .transform(isolated(VISITS_SERVICE))
+            .onErrorResume(throwable -> emptyVisitsForPets());
+    }
+
+    /**
+     * Runs a call to the given service within the bulkhead, time limiter and circuit breaker of that service,
+     * shared with the requests routed to it.
+     */
+    private <T> Function<Mono<T>, Mono<T>> isolated(String serviceId) {
+        return call -> {
+            ReactiveCircuitBreaker cb = cbFactory.create(serviceId);
+            return cb.run(call.transformDeferred(BulkheadOperator.of(bulkheadRegistry.bulkhead(serviceId))));
         };
     }
 
+    private Function<Visits, OwnerDetails> addVisitsToOwner(OwnerDetails owner) {
+        return visits -> PetVisitsIndex.of(visits).addVisitsTo(owner);
+    }
+
     private Mono<Visits> emptyVisitsForPets() {
         return Mono.just(new Visits(List.of()));
     }
+
+    private record OwnerDetailsResult(OwnerDetails owner, boolean stale) {
+
+        static OwnerDetailsResult fresh(OwnerDetails owner) {
+            return new OwnerDetailsResult(owner, false);
+        }
+
+        static OwnerDetailsResult stale(OwnerDetails owner) {
+            return new OwnerDetailsResult(owner, true);
+        }
+    }
 }
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PropertiesLoaderUtils;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Serves the {@code static/} web assets prepared at build time by {@code StaticAssetsPackager}:
+ * <ul>
+ *     <li>{@code index.html} links to the content fingerprinted names of the assets, which are cached by browsers
+ *     for a year without revalidation</li>
+ *     <li>the gzip precompressed variant of an asset is served to clients accepting it, so nothing is compressed
+ *     at runtime</li>
+ * </ul>
+ * When the assets were not packaged, e.g. when run from an IDE without the Maven build, they are served as is.
+ */
+public class StaticAssets {
+
+    /**
+     * Classpath location of the original to fingerprinted asset path mapping
+     */
+    public static final String MANIFEST = "asset-manifest.properties";
+
+    public static final String STATIC_DIRECTORY = "static";
+
+    private static final Logger log = LoggerFactory.getLogger(StaticAssets.class);
+
+    private static final String GZIP_SUFFIX = ".gz";
+
+    private static final String IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().getHeaderValue()
+        + ", immutable";
+
+    private final Function<ServerRequest, Mono<Resource>> lookup;
+
+    private final Map<Resource, Resource> gzipVariants = new HashMap<>();
+
+    private final Set<Resource> fingerprinted = new HashSet<>();
+
+    private final String indexHtml;
+
+    public StaticAssets() {
+        this(new ClassPathResource(STATIC_DIRECTORY + "/"),
+            new ClassPathResource(MANIFEST));
+    }
+
+    StaticAssets(Resource location, Resource manifest) {
+        this.lookup = RouterFunctions.resourceLookupFunction("/**", location);
+        try {
+            Map<String, String> fingerprints = loadManifest(manifest);
+            String html = location.createRelative("index.html").getContentAsString(StandardCharsets.UTF_8);
+            registerGzipVariant(location, "index.html");
+            for (Map.Entry<String, String> asset : fingerprints.entrySet()) {
+                html = html.replace("\"/" + asset.getKey() + "\"", "\"/" + asset.getValue() + "\"");
+                registerGzipVariant(location, asset.getKey());
+                fingerprinted.add(location.createRelative(asset.getValue()));
+                Resource variant = registerGzipVariant(location, asset.getValue());
+                if (variant != null) {
+                    fingerprinted.add(variant);
+                }
+            }
+            this.indexHtml = html;
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Cannot load the static assets", ex);
+        }
+    }
+
+    public String indexHtml() {
+        return indexHtml;
+    }
+
+    /**
+     * Resolves the asset of the request, or its gzip variant when the client accepts it
+     */
+    public Mono<Resource> lookup(ServerRequest request) {
+        return lookup.apply(request).map(resource -> {
+            Resource variant = gzipVariants.get(resource);
+            return variant != null && acceptsGzip(request) ? variant : resource;
+        });
+    }
+
+    public void addHeaders(Resource resource, HttpHeaders headers) {
+        String filename = resource.getFilename();
+        if (filename != null && filename.endsWith(GZIP_SUFFIX)) {
+            String original = filename.substring(0, filename.length() - GZIP_SUFFIX.length());
+            MediaTypeFactory.getMediaType(original).ifPresent(headers::setContentType);
+            headers.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        } else if (gzipVariants.containsKey(resource)) {
+            headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        }
+        if (fingerprinted.contains(resource)) {
+            headers.setCacheControl(IMMUTABLE);
+        }
+    }
+
+    private Resource registerGzipVariant(Resource location, String path) throws IOException {
+        Resource variant = location.createRelative(path + GZIP_SUFFIX);
+        if (!variant.exists()) {
+            return null;
+        }
+        gzipVariants.put(location.createRelative(path), variant);
+        return variant;
+    }
+
+    private static Map<String, String> loadManifest(Resource manifest) throws IOException {
+        Map<String, String> fingerprints = new HashMap<>();
+        if (!manifest.exists()) {
+            log.info("No {} found, static assets are served without fingerprints", MANIFEST);
+            return fingerprints;
+        }
+        Properties properties = PropertiesLoaderUtils.loadProperties(manifest);
+        properties.stringPropertyNames().forEach(path -> fingerprints.put(path, properties.getProperty(path)));
+        return fingerprints;
+    }
+
+    private static boolean acceptsGzip(ServerRequest request) {
+        for (String value : request.headers().header(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+                }
+            }
+        }
+        return false;
+    }
+}
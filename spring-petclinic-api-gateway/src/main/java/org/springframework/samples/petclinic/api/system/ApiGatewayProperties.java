@@ -0,0 +1,100 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.api.system;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.time.Period;
+
+@ConfigurationProperties(prefix = "gateway")
+public record ApiGatewayProperties(
+    @DefaultValue Bulk bulk,
+    @DefaultValue Pool pool,
+    @DefaultValue FallbackCache fallbackCache,
+    @DefaultValue Hedging hedging,
+    @DefaultValue OwnerVisits ownerVisits
+) {
+    /**
+     * @param chunkSize         number of owners whose visits are fetched with a single visits-service call
+     * @param chunkConcurrency  number of chunks processed at the same time
+     * @param ownerConcurrency  number of concurrent customers-service calls within a chunk
+     * @param maxIds            maximum number of owner ids accepted by a single request
+     */
+    public record Bulk(
+        @DefaultValue("50") int chunkSize,
+        @DefaultValue("4") int chunkConcurrency,
+        @DefaultValue("8") int ownerConcurrency,
+        @DefaultValue("1000") int maxIds
+    ) {
+    }
+
+    /**
+     * Connection pool shared by the {@code WebClient}s calling the backend services.
+     *
+     * @param maxConnections          maximum number of connections per remote host
+     * @param pendingAcquireMaxCount  maximum number of requests waiting for a connection, further ones fail fast
+     * @param pendingAcquireTimeout   maximum time a request waits for a connection
+     * @param maxIdleTime             idle time after which a connection is closed
+     * @param maxLifeTime             lifetime after which a connection is closed, regardless of its activity
+     * @param evictionInterval        interval of the background eviction of idle and expired connections
+     */
+    public record Pool(
+        @DefaultValue("100") int maxConnections,
+        @DefaultValue("500") int pendingAcquireMaxCount,
+        @DefaultValue("5s") Duration pendingAcquireTimeout,
+        @DefaultValue("30s") Duration maxIdleTime,
+        @DefaultValue("10m") Duration maxLifeTime,
+        @DefaultValue("30s") Duration evictionInterval
+    ) {
+    }
+
+    /**
+     * Last known good owner details, served when the customers or visits service is unavailable.
+     *
+     * @param maxSize  maximum number of owners kept
+     * @param ttl      time after which an owner is evicted and can no longer be served as a fallback
+     */
+    public record FallbackCache(
+        @DefaultValue("10000") long maxSize,
+        @DefaultValue("30m") Duration ttl
+    ) {
+    }
+
+    /**
+     * @param visitsDelay  delay after which a visits-service read still waiting for its response is sent again, to
+     *                     another instance, and the first response wins; typically the observed p95 latency.
+     *                     Hedging is disabled when not set
+     */
+    public record Hedging(
+        Duration visitsDelay
+    ) {
+    }
+
+    /**
+     * Visits read along with owner details, the most recent ones of each pet.
+     *
+     * @param history      period before today that visits are read from. Visits of any date, and visits without a
+     *                     date, are read when not set
+     * @param limitPerPet  maximum number of visits read for each pet
+     */
+    public record OwnerVisits(
+        Period history,
+        @DefaultValue("20") int limitPerPet
+    ) {
+    }
+}
@@ -3,8 +3,38 @@
 angular.module('ownerList')
     .controller('OwnerListController', ['$http', function ($http) {
         var self = this;
+        var pageSize = 50;
 
-        $http.get('api/customer/owners').then(function (resp) {
-            self.owners = resp.data;
-        });
+        self.owners = [];
+        self.nextCursor = null;
+
+        self.loadMore = function () {
+            var params = {size: pageSize};
+            if (self.nextCursor) {
+                params.cursor = self.nextCursor;
+            }
+            self.loading = true;
+            $http.get('api/customer/owners', {params: params}).then(function (resp) {
+                self.owners = self.owners.concat(resp.data.owners);
+                self.nextCursor = resp.data.nextCursor;
+            }).finally(function () {
+                self.loading = false;
+            });
+        };
+
+        // Searches the owners by the beginning of their last name on the server, the list only holds loaded pages
+        self.search = function () {
+            if (!self.query) {
+                self.searchResults = null;
+                return;
+            }
+            var query = self.query;
+            $http.get('api/customer/owners/search', {params: {lastName: query, limit: 50}}).then(function (resp) {
+                if (query === self.query) {
+                    self.searchResults = resp.data;
+                }
+            });
+        };
+
+        self.loadMore();
     }]);
@@ -12,6 +12,14 @@ angular.module('visits')
             self.visits = resp.data;
         });
 
+        // Visit lists only carry the beginning of long descriptions
+        self.showDescription = function (visit) {
+            $http.get(url + "/" + visit.id).then(function (resp) {
+                visit.description = resp.data.description;
+                visit.descriptionTruncated = false;
+            });
+        };
+
         self.submit = function () {
             var data = {
                 date: $filter('date')(self.date, "yyyy-MM-dd"),
@@ -0,0 +1,96 @@
+package org.springframework.samples.petclinic.api;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Starts the gateway in front of a customers-service stub slower than the customers-service time limit, and checks
+ * that the owner export still goes through the customers-service-bulk route, without lowering the adaptive
+ * concurrency limit of customers-service.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "resilience4j.timelimiter.instances.customers-service.timeoutDuration=500ms"
+})
+class CustomersBulkRouteIntegrationTest {
+
+    private static final String EXPORT = "{\"id\":1,\"firstName\":\"George\"}\n";
+
+    private static final MockWebServer customersService = new MockWebServer();
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void serviceInstances(DynamicPropertyRegistry registry) throws IOException {
+        customersService.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse().setBody(EXPORT)
+                    .setHeader("Content-Type", "application/x-ndjson")
+                    .setHeadersDelay(1, TimeUnit.SECONDS);
+            }
+        });
+        customersService.start();
+        registry.add("spring.cloud.discovery.client.simple.instances.customers-service[0].uri",
+            () -> customersService.url("/").toString());
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        customersService.shutdown();
+    }
+
+    @Test
+    void exportDoesNotLowerTheCustomersServiceConcurrencyLimit() {
+        double limit = customersServiceLimit();
+
+        client.mutate().responseTimeout(Duration.ofSeconds(5)).build()
+            .get().uri("/api/customer/owners/export")
+            .exchange()
+            .expectStatus().isOk();
+
+        assertEquals(limit, customersServiceLimit());
+    }
+
+    @Test
+    void exportIsNotCutByTheCustomersServiceTimeLimit() {
+        WebTestClient slowClient = client.mutate().responseTimeout(Duration.ofSeconds(5)).build();
+
+        slowClient.get().uri("/api/customer/owners/export")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).isEqualTo(EXPORT);
+
+        HttpStatus status = HttpStatus.resolve(slowClient.get().uri("/api/customer/owners/1")
+            .exchange()
+            .returnResult(String.class).getStatus().value());
+        assertNotEquals(HttpStatus.OK, status);
+    }
+
+    private double customersServiceLimit() {
+        return meterRegistry.get("petclinic.gateway.concurrency.limit").tag("route", "customers-service").gauge().value();
+    }
+}
@@ -0,0 +1,95 @@
+package org.springframework.samples.petclinic.api.application;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.dto.PetDetails;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the former per-pet scan of all visits with the single-pass {@link PetVisitsIndex} join.
+ * <p>
+ * Run with:
+ * <pre>
+ * ../mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     "-Dexec.args=-cp %classpath org.springframework.samples.petclinic.api.application.PetVisitsIndexBenchmark"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PetVisitsIndexBenchmark {
+
+    @Param({"1", "10", "50"})
+    int pets;
+
+    @Param({"5", "100"})
+    int visitsPerPet;
+
+    private Visits visits;
+
+    private OwnerDetails owner;
+
+    @Setup(Level.Trial)
+    public void createVisits() {
+        List<VisitDetails> items = new ArrayList<>(pets * visitsPerPet);
+        for (int visit = 0; visit < visitsPerPet; visit++) {
+            for (int pet = 0; pet < pets; pet++) {
+                items.add(new VisitDetails(items.size(), pet, "2024-01-01", "checkup"));
+            }
+        }
+        visits = new Visits(items);
+    }
+
+    @Setup(Level.Invocation)
+    public void createOwner() {
+        List<PetDetails> petDetails = new ArrayList<>(pets);
+        for (int pet = 0; pet < pets; pet++) {
+            petDetails.add(PetDetails.PetDetailsBuilder.aPetDetails().id(pet).build());
+        }
+        owner = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails().pets(petDetails).build();
+    }
+
+    @Benchmark
+    public OwnerDetails scanPerPet() {
+        owner.pets()
+            .forEach(pet -> pet.visits()
+                .addAll(visits.items().stream()
+                    .filter(v -> v.petId() == pet.id())
+                    .toList())
+            );
+        return owner;
+    }
+
+    @Benchmark
+    public OwnerDetails indexByPetId() {
+        return PetVisitsIndex.of(visits).addVisitsTo(owner);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(PetVisitsIndexBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
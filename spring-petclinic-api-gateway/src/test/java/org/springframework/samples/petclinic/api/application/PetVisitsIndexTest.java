@@ -0,0 +1,37 @@
+package org.springframework.samples.petclinic.api.application;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.samples.petclinic.api.dto.OwnerDetails;
+import org.springframework.samples.petclinic.api.dto.PetDetails;
+import org.springframework.samples.petclinic.api.dto.VisitDetails;
+import org.springframework.samples.petclinic.api.dto.Visits;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PetVisitsIndexTest {
+
+    @Test
+    void addsVisitsToMatchingPetsOnly() {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails().id(1).name("Leo").build();
+        PetDetails dog = PetDetails.PetDetailsBuilder.aPetDetails().id(2).name("Rex").build();
+        PetDetails bird = PetDetails.PetDetailsBuilder.aPetDetails().id(3).name("Tweety").build();
+        OwnerDetails owner = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .pets(List.of(cat, dog, bird))
+            .build();
+        Visits visits = new Visits(List.of(
+            new VisitDetails(10, 1, "2024-01-01", "rabies shot"),
+            new VisitDetails(11, 2, "2024-01-02", "neutered"),
+            new VisitDetails(12, 1, "2024-01-03", "checkup"),
+            new VisitDetails(13, 99, "2024-01-04", "someone else's pet"),
+            new VisitDetails(14, null, "2024-01-05", "no pet")));
+
+        PetVisitsIndex.of(visits).addVisitsTo(owner);
+
+        assertEquals(List.of(10, 12), cat.visits().stream().map(VisitDetails::id).toList());
+        assertEquals(List.of(11), dog.visits().stream().map(VisitDetails::id).toList());
+        assertTrue(bird.visits().isEmpty());
+    }
+}
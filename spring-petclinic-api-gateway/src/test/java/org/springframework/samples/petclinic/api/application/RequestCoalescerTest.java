@@ -0,0 +1,86 @@
+package org.springframework.samples.petclinic.api.application;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class RequestCoalescerTest {
+
+    private SimpleMeterRegistry registry;
+
+    private RequestCoalescer<Integer, String> coalescer;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        coalescer = new RequestCoalescer<>("test", registry);
+    }
+
+    @Test
+    void concurrentCallsForSameKeyShareOneDownstreamCall() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> downstream = Sinks.one();
+
+        Mono<String> first = coalescer.execute(1, () -> {
+            calls.incrementAndGet();
+            return downstream.asMono();
+        });
+        Mono<String> second = coalescer.execute(1, () -> {
+            calls.incrementAndGet();
+            return downstream.asMono();
+        });
+
+        AtomicInteger results = new AtomicInteger();
+        first.subscribe(value -> results.incrementAndGet());
+        second.subscribe(value -> results.incrementAndGet());
+        downstream.tryEmitValue("owner");
+
+        assertEquals(1, calls.get());
+        assertEquals(2, results.get());
+        assertEquals(0, coalescer.inFlightCount());
+        assertEquals(1.0, counter("started"));
+        assertEquals(1.0, counter("merged"));
+    }
+
+    @Test
+    void completedCallIsNotReused() {
+        AtomicInteger calls = new AtomicInteger();
+
+        coalescer.execute(1, () -> Mono.fromCallable(() -> "call-" + calls.incrementAndGet())).block();
+        String second = coalescer.execute(1, () -> Mono.fromCallable(() -> "call-" + calls.incrementAndGet())).block();
+
+        assertEquals("call-2", second);
+        assertEquals(2.0, counter("started"));
+    }
+
+    @Test
+    void differentKeysAreNotMerged() {
+        AtomicInteger calls = new AtomicInteger();
+        Sinks.One<String> downstream = Sinks.one();
+
+        coalescer.execute(1, () -> {
+            calls.incrementAndGet();
+            return downstream.asMono();
+        }).subscribe();
+        coalescer.execute(2, () -> {
+            calls.incrementAndGet();
+            return downstream.asMono();
+        }).subscribe();
+
+        assertEquals(2, calls.get());
+        assertEquals(2, coalescer.inFlightCount());
+    }
+
+    private double counter(String outcome) {
+        return registry.get("petclinic.gateway.coalesced.requests")
+            .tag("outcome", outcome)
+            .counter()
+            .count();
+    }
+}
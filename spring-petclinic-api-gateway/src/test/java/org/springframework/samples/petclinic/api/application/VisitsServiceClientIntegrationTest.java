@@ -1,16 +1,23 @@
 package org.springframework.samples.petclinic.api.application;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.samples.petclinic.api.dto.Visits;
+import org.springframework.samples.petclinic.api.system.ApiGatewayProperties;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
 
 import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
 import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
@@ -24,11 +31,13 @@ class VisitsServiceClientIntegrationTest {
 
     private MockWebServer server;
 
+    private SimpleMeterRegistry registry;
+
     @BeforeEach
     void setUp() {
         server = new MockWebServer();
-        visitsServiceClient = new VisitsServiceClient(WebClient.builder());
-        visitsServiceClient.setHostname(server.url("/").toString());
+        registry = new SimpleMeterRegistry();
+        visitsServiceClient = visitsServiceClient(null, null);
     }
 
     @AfterEach
@@ -47,6 +56,45 @@ class VisitsServiceClientIntegrationTest {
         assertVisitDescriptionEquals(visits.block(), PET_ID,"test visit");
     }
 
+    @Test
+    void getVisitsForPets_hedgedWhenFirstInstanceIsSlow() {
+        visitsServiceClient = visitsServiceClient(Duration.ofMillis(100), null);
+        prepareResponse(response -> response
+            .setHeadersDelay(2, TimeUnit.SECONDS)
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"items\":[{\"id\":5,\"date\":\"2018-11-15\",\"description\":\"slow visit\",\"petId\":1}]}"));
+        prepareResponse(response -> response
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"items\":[{\"id\":5,\"date\":\"2018-11-15\",\"description\":\"hedged visit\",\"petId\":1}]}"));
+
+        Visits visits = visitsServiceClient.getVisitsForPets(Collections.singletonList(1)).block(Duration.ofSeconds(1));
+
+        assertVisitDescriptionEquals(visits, PET_ID, "hedged visit");
+        assertEquals(1, registry.get("petclinic.gateway.hedging").tag("event", "hedge").counter().count());
+        assertEquals(1, registry.get("petclinic.gateway.hedging").tag("event", "hedge_win").counter().count());
+    }
+
+    @Test
+    void getVisitsForPets_readsRecentVisitsOnly() throws InterruptedException {
+        visitsServiceClient = visitsServiceClient(null, Period.ofYears(2));
+        prepareResponse(response -> response
+            .setHeader("Content-Type", "application/json")
+            .setBody("{\"items\":[]}"));
+
+        visitsServiceClient.getVisitsForPets(List.of(1, 2)).block(Duration.ofSeconds(1));
+
+        assertEquals("/pets/visits?petId=1%2C2&limit=20&from=" + LocalDate.now().minusYears(2),
+            server.takeRequest().getPath());
+    }
+
+    private VisitsServiceClient visitsServiceClient(Duration hedgingDelay, Period history) {
+        VisitsServiceClient client = new VisitsServiceClient(WebClient.builder(),
+            new ApiGatewayProperties(null, null, null, new ApiGatewayProperties.Hedging(hedgingDelay),
+                new ApiGatewayProperties.OwnerVisits(history, 20)),
+            registry);
+        client.setHostname(server.url("/").toString());
+        return client;
+    }
 
     private void assertVisitDescriptionEquals(Visits visits, int petId, String description) {
         assertEquals(1, visits.items().size());
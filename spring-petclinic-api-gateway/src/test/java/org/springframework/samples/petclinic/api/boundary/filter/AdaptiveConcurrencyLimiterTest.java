@@ -0,0 +1,76 @@
+package org.springframework.samples.petclinic.api.boundary.filter;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long THRESHOLD = Duration.ofMillis(100).toNanos();
+
+    private final AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 2, 6, THRESHOLD, 0.5);
+
+    @Test
+    void rejectsRequestsAboveTheLimit() {
+        for (int i = 0; i < 4; i++) {
+            assertTrue(limiter.tryAcquire());
+        }
+        assertFalse(limiter.tryAcquire());
+
+        limiter.onIgnore();
+
+        assertTrue(limiter.tryAcquire());
+    }
+
+    @Test
+    void fastResponsesUnderLoadRaiseTheLimitUpToTheMaximum() {
+        for (int i = 0; i < 10; i++) {
+            int acquired = 0;
+            while (limiter.tryAcquire()) {
+                acquired++;
+            }
+            limiter.onSuccess(THRESHOLD / 2);
+            for (int j = 1; j < acquired; j++) {
+                limiter.onIgnore();
+            }
+        }
+
+        assertEquals(6, limiter.getLimit());
+    }
+
+    @Test
+    void fastResponsesOfAnIdleRouteKeepTheLimit() {
+        limiter.tryAcquire();
+        limiter.onSuccess(THRESHOLD / 2);
+
+        assertEquals(4, limiter.getLimit());
+    }
+
+    @Test
+    void slowResponsesAndFailuresLowerTheLimitDownToTheMinimum() {
+        limiter.tryAcquire();
+        limiter.onSuccess(THRESHOLD * 2);
+        assertEquals(2, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onFailure();
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+
+    @Test
+    void cancellationsPastTheThresholdLowerTheLimit() {
+        limiter.tryAcquire();
+        limiter.onCancel(THRESHOLD / 2);
+        assertEquals(4, limiter.getLimit());
+
+        limiter.tryAcquire();
+        limiter.onCancel(THRESHOLD * 2);
+        assertEquals(2, limiter.getLimit());
+        assertEquals(0, limiter.getInFlight());
+    }
+}
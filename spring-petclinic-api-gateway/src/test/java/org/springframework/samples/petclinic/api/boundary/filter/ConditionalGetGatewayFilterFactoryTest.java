@@ -0,0 +1,132 @@
+package org.springframework.samples.petclinic.api.boundary.filter;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Starts the gateway in front of a vets-service stub, whose route has the {@code ConditionalGet} filter.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class ConditionalGetGatewayFilterFactoryTest {
+
+    private static final String BODY = "[{\"id\":1,\"firstName\":\"James\"}]";
+
+    private static final String LARGE_BODY = "[" + "\"x\",".repeat(100_000) + "\"x\"]";
+
+    private static final MockWebServer vetsService = new MockWebServer();
+
+    @Autowired
+    private WebTestClient client;
+
+    @DynamicPropertySource
+    static void serviceInstances(DynamicPropertyRegistry registry) throws IOException {
+        vetsService.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return switch (request.getPath()) {
+                    case "/stream" -> new MockResponse().setBody(BODY).setHeader("Content-Type", "application/x-ndjson");
+                    case "/chunked" -> new MockResponse().setChunkedBody(BODY, 8)
+                        .setHeader("Content-Type", "application/json");
+                    case "/large" -> new MockResponse().setBody(LARGE_BODY).setHeader("Content-Type", "application/json");
+                    default -> new MockResponse().setBody(BODY).setHeader("Content-Type", "application/json");
+                };
+            }
+        });
+        vetsService.start();
+        registry.add("spring.cloud.discovery.client.simple.instances.vets-service[0].uri",
+            () -> vetsService.url("/").toString());
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        vetsService.shutdown();
+    }
+
+    @Test
+    void tagsProxiedResponseWithAStableEtag() {
+        String etag = client.get().uri("/api/vet/vets")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).isEqualTo(BODY)
+            .returnResult().getResponseHeaders().getETag();
+
+        assertNotNull(etag);
+        client.get().uri("/api/vet/vets")
+            .exchange()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, etag);
+    }
+
+    @Test
+    void answersMatchingIfNoneMatchWithNotModified() {
+        String etag = client.get().uri("/api/vet/vets")
+            .exchange()
+            .returnResult(String.class).getResponseHeaders().getETag();
+
+        client.get().uri("/api/vet/vets")
+            .ifNoneMatch(etag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+            .expectBody().isEmpty();
+    }
+
+    @Test
+    void returnsFullBodyWhenIfNoneMatchDiffers() {
+        client.get().uri("/api/vet/vets")
+            .ifNoneMatch("\"outdated\"")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class).isEqualTo(BODY);
+    }
+
+    @Test
+    void passesStreamedResponsesThrough() {
+        client.get().uri("/api/vet/stream")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.ETAG)
+            .expectBody(String.class).isEqualTo(BODY);
+    }
+
+    @Test
+    void passesResponsesWithoutContentLengthThrough() {
+        client.get().uri("/api/vet/chunked")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.ETAG)
+            .expectBody(String.class).isEqualTo(BODY);
+    }
+
+    @Test
+    void passesResponsesAboveMaxBodySizeThrough() {
+        client.mutate().codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(LARGE_BODY.length())).build()
+            .get().uri("/api/vet/large")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.ETAG)
+            .expectBody(String.class).isEqualTo(LARGE_BODY);
+    }
+
+    @Test
+    void leavesOtherMethodsUntouched() {
+        client.post().uri("/api/vet/vets")
+            .exchange()
+            .expectHeader().doesNotExist(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,100 @@
+package org.springframework.samples.petclinic.api.boundary.filter;
+
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Starts the gateway in front of a slow genai-service stub and a fast vets-service stub, and checks that saturating
+ * the genai-service bulkhead does not affect requests routed to vets-service.
+ */
+@ActiveProfiles("test")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "resilience4j.bulkhead.instances.genai-service.maxConcurrentCalls=2"
+})
+class ServiceBulkheadFilterIntegrationTest {
+
+    private static final MockWebServer slowGenaiService = new MockWebServer();
+
+    private static final MockWebServer vetsService = new MockWebServer();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private WebTestClient client;
+
+    @DynamicPropertySource
+    static void serviceInstances(DynamicPropertyRegistry registry) throws IOException {
+        slowGenaiService.setDispatcher(respondWith(new MockResponse().setBody("slow").setHeadersDelay(3, TimeUnit.SECONDS)));
+        slowGenaiService.start();
+        vetsService.setDispatcher(respondWith(new MockResponse().setBody("[]").setHeader("Content-Type", "application/json")));
+        vetsService.start();
+        registry.add("spring.cloud.discovery.client.simple.instances.genai-service[0].uri",
+            () -> slowGenaiService.url("/").toString());
+        registry.add("spring.cloud.discovery.client.simple.instances.vets-service[0].uri",
+            () -> vetsService.url("/").toString());
+    }
+
+    @AfterAll
+    static void shutdown() throws IOException {
+        slowGenaiService.shutdown();
+        vetsService.shutdown();
+    }
+
+    @Test
+    void saturatedServiceDoesNotStarveOtherRoutes() throws InterruptedException {
+        WebClient gateway = WebClient.create("http://localhost:" + port);
+        for (int i = 0; i < 2; i++) {
+            gateway.get().uri("/api/genai/chatclient").retrieve().toBodilessEntity().subscribe();
+        }
+        awaitRequests(slowGenaiService, 2);
+
+        client.get()
+            .uri("/api/genai/chatclient")
+            .exchange()
+            .expectStatus().isEqualTo(503);
+
+        client.mutate().responseTimeout(Duration.ofSeconds(1)).build()
+            .get()
+            .uri("/api/vet/vets")
+            .exchange()
+            .expectStatus().isOk();
+
+        assertEquals(2, slowGenaiService.getRequestCount());
+    }
+
+    private static Dispatcher respondWith(MockResponse response) {
+        return new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return response;
+            }
+        };
+    }
+
+    private static void awaitRequests(MockWebServer server, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (server.getRequestCount() < count && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, server.getRequestCount());
+    }
+}
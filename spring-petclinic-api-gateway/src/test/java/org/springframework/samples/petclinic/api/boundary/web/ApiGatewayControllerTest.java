@@ -1,30 +1,54 @@
 package org.springframework.samples.petclinic.api.boundary.web;
 
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.cloud.circuitbreaker.resilience4j.ReactiveResilience4JAutoConfiguration;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.samples.petclinic.api.application.CustomersServiceClient;
+import org.springframework.samples.petclinic.api.application.OwnerDetailsFallbackCache;
 import org.springframework.samples.petclinic.api.application.VisitsServiceClient;
 import org.springframework.samples.petclinic.api.dto.*;
+import org.springframework.samples.petclinic.api.system.ApiGatewayProperties;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Mono;
 
 import java.net.ConnectException;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.stream.IntStream;
 
 @ExtendWith(SpringExtension.class)
 @WebFluxTest(controllers = ApiGatewayController.class)
-@Import({ReactiveResilience4JAutoConfiguration.class, CircuitBreakerConfiguration.class})
+@Import({ReactiveResilience4JAutoConfiguration.class, CircuitBreakerConfiguration.class, SimpleMeterRegistry.class,
+    OwnerDetailsFallbackCache.class})
+@EnableConfigurationProperties(ApiGatewayProperties.class)
 class ApiGatewayControllerTest {
 
+    @TestConfiguration
+    static class BulkheadConfiguration {
+
+        @Bean
+        BulkheadRegistry bulkheadRegistry() {
+            return BulkheadRegistry.ofDefaults();
+        }
+    }
+
     @MockBean
     private CustomersServiceClient customersServiceClient;
 
@@ -94,4 +118,158 @@ class ApiGatewayControllerTest {
             .jsonPath("$.pets[0].visits").isEmpty();
     }
 
+    @Test
+    void getOwnerDetails_servesLastKnownGoodWhenVisitsServiceFails() {
+        Mockito
+            .when(customersServiceClient.getOwner(2))
+            .thenReturn(Mono.fromSupplier(() -> ownerWithCat(2)));
+        Mockito
+            .when(visitsServiceClient.getVisitsForPets(Collections.singletonList(20)))
+            .thenReturn(Mono.just(new Visits(List.of(new VisitDetails(300, 20, null, "First visit")))))
+            .thenReturn(Mono.error(new ConnectException("Simulate error")));
+
+        client.get()
+            .uri("/api/gateway/owners/2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.WARNING);
+
+        client.get()
+            .uri("/api/gateway/owners/2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+            .expectBody()
+            .jsonPath("$.pets[0].visits[0].description").isEqualTo("First visit");
+    }
+
+    @Test
+    void getOwnerDetails_servesLastKnownGoodWhenCustomersServiceFails() {
+        Mockito
+            .when(customersServiceClient.getOwner(3))
+            .thenReturn(Mono.fromSupplier(() -> ownerWithCat(3)))
+            .thenReturn(Mono.error(new ConnectException("Simulate error")));
+        Mockito
+            .when(visitsServiceClient.getVisitsForPets(Collections.singletonList(20)))
+            .thenReturn(Mono.just(new Visits(List.of(new VisitDetails(300, 20, null, "First visit")))));
+
+        client.get()
+            .uri("/api/gateway/owners/3")
+            .exchange()
+            .expectStatus().isOk();
+
+        client.get()
+            .uri("/api/gateway/owners/3")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists(HttpHeaders.WARNING)
+            .expectBody()
+            .jsonPath("$.id").isEqualTo(3)
+            .jsonPath("$.pets[0].visits[0].description").isEqualTo("First visit");
+    }
+
+    @Test
+    void getOwnerDetails_failsWhenCustomersServiceFailsWithoutFallback() {
+        Mockito
+            .when(customersServiceClient.getOwner(4))
+            .thenReturn(Mono.error(new ConnectException("Simulate error")));
+
+        client.get()
+            .uri("/api/gateway/owners/4")
+            .exchange()
+            .expectStatus().is5xxServerError();
+    }
+
+    private OwnerDetails ownerWithCat(int ownerId) {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(20)
+            .name("Garfield")
+            .build();
+        return OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(ownerId)
+            .pets(List.of(cat))
+            .build();
+    }
+
+    @Test
+    void getOwnersDetails_fetchesVisitsOnceForAllPets() {
+        PetDetails cat = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(20)
+            .name("Garfield")
+            .build();
+        PetDetails dog = PetDetails.PetDetailsBuilder.aPetDetails()
+            .id(21)
+            .name("Odie")
+            .build();
+        OwnerDetails jon = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(1)
+            .pets(List.of(cat))
+            .build();
+        OwnerDetails liz = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(2)
+            .pets(List.of(dog))
+            .build();
+        Mockito
+            .when(customersServiceClient.getOwner(1))
+            .thenReturn(Mono.just(jon));
+        Mockito
+            .when(customersServiceClient.getOwner(2))
+            .thenReturn(Mono.just(liz));
+        Mockito
+            .when(visitsServiceClient.getVisitsForPets(Mockito.argThat(petIds ->
+                petIds.size() == 2 && petIds.containsAll(List.of(cat.id(), dog.id())))))
+            .thenReturn(Mono.just(new Visits(List.of(
+                new VisitDetails(300, cat.id(), null, "First visit"),
+                new VisitDetails(301, dog.id(), null, "Second visit")))));
+
+        List<OwnerDetails> owners = client.get()
+            .uri("/api/gateway/owners?ids=1,2,1")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(OwnerDetails.class)
+            .returnResult()
+            .getResponseBody();
+
+        owners.sort(Comparator.comparingInt(OwnerDetails::id));
+        Assertions.assertEquals(2, owners.size());
+        Assertions.assertEquals("First visit", owners.get(0).pets().get(0).visits().get(0).description());
+        Assertions.assertEquals("Second visit", owners.get(1).pets().get(0).visits().get(0).description());
+        Mockito.verify(visitsServiceClient, Mockito.times(1)).getVisitsForPets(Mockito.anyList());
+    }
+
+    @Test
+    void getOwnersDetails_leavesOutOwnersThatCannotBeFetched() {
+        OwnerDetails jon = OwnerDetails.OwnerDetailsBuilder.anOwnerDetails()
+            .id(1)
+            .pets(List.of())
+            .build();
+        Mockito
+            .when(customersServiceClient.getOwner(1))
+            .thenReturn(Mono.just(jon));
+        Mockito
+            .when(customersServiceClient.getOwner(2))
+            .thenReturn(Mono.error(WebClientResponseException.create(404, "Not Found", null, null, null)));
+
+        client.get()
+            .uri("/api/gateway/owners?ids=2,1")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(OwnerDetails.class)
+            .hasSize(1)
+            .contains(jon);
+    }
+
+    @Test
+    void getOwnersDetails_rejectsTooManyIds() {
+        String ids = String.join(",", IntStream.rangeClosed(1, 1001).mapToObj(String::valueOf).toList());
+
+        client.get()
+            .uri("/api/gateway/owners?ids=" + ids)
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isBadRequest();
+        Mockito.verifyNoInteractions(customersServiceClient);
+    }
 }
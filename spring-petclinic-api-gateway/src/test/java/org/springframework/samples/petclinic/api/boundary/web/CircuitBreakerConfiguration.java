@@ -2,12 +2,16 @@ package org.springframework.samples.petclinic.api.boundary.web;
 
 import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import io.github.resilience4j.timelimiter.TimeLimiterRegistry;
+import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.cloud.circuitbreaker.resilience4j.Resilience4JConfigurationProperties;
 import org.springframework.context.annotation.Bean;
-import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Primary;
 
-@Configuration
+/**
+ * Default Resilience4j registries for the web slice tests. Kept out of component scanning, so that the full
+ * application tests use the time limits and bulkheads of application.yml.
+ */
+@TestConfiguration
 public class CircuitBreakerConfiguration {
 
     @Bean
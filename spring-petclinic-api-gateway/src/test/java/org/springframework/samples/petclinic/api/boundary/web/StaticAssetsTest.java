@@ -0,0 +1,89 @@
+package org.springframework.samples.petclinic.api.boundary.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.samples.petclinic.assets.StaticAssetsPackager;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StaticAssetsTest {
+
+    private static final String SCRIPT = "angular.module('petClinicApp', []);\n".repeat(20);
+
+    @TempDir
+    Path classes;
+
+    private StaticAssets staticAssets;
+
+    private WebTestClient client;
+
+    @BeforeEach
+    void packAssets() throws IOException {
+        Path scripts = Files.createDirectories(classes.resolve("static/scripts"));
+        Files.writeString(classes.resolve("static/index.html"), "<script src=\"/scripts/app.js\"></script>");
+        Files.writeString(scripts.resolve("app.js"), SCRIPT);
+        Path manifest = classes.resolve(StaticAssets.MANIFEST);
+        StaticAssetsPackager.pack(classes.resolve(StaticAssets.STATIC_DIRECTORY), manifest);
+        // Packaging twice must not fingerprint the fingerprinted copies
+        StaticAssetsPackager.pack(classes.resolve(StaticAssets.STATIC_DIRECTORY), manifest);
+
+        staticAssets = new StaticAssets(new FileSystemResource(classes.resolve("static") + "/"),
+            new FileSystemResource(manifest));
+        client = WebTestClient
+            .bindToRouterFunction(RouterFunctions.resources(staticAssets::lookup, staticAssets::addHeaders))
+            .build();
+    }
+
+    @Test
+    void indexLinksToFingerprintedAssetsCachedForever() {
+        String fingerprinted = fingerprintedScript();
+
+        client.get().uri(fingerprinted)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable")
+            .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+            .expectBody(String.class).isEqualTo(SCRIPT);
+    }
+
+    @Test
+    void servesPrecompressedVariantToClientsAcceptingGzip() {
+        client.get().uri(fingerprintedScript())
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_ENCODING, "gzip")
+            .expectHeader().valueEquals(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING)
+            .expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType("text/javascript"))
+            .expectHeader().valueEquals(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable");
+    }
+
+    @Test
+    void servesOriginalNamesWithoutLongLivedCaching() {
+        client.get().uri("/scripts/app.js")
+            .header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist(HttpHeaders.CACHE_CONTROL)
+            .expectHeader().doesNotExist(HttpHeaders.CONTENT_ENCODING)
+            .expectBody(String.class).isEqualTo(SCRIPT);
+    }
+
+    private String fingerprintedScript() {
+        Matcher matcher = Pattern.compile("src=\"(/scripts/app\\.[0-9a-f]{10}\\.js)\"").matcher(staticAssets.indexHtml());
+        assertTrue(matcher.find(), staticAssets.indexHtml());
+        return matcher.group(1);
+    }
+}
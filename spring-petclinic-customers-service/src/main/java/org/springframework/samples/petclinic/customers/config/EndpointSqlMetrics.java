@@ -0,0 +1,199 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.MethodExecutionContext;
+import net.ttddyy.dsproxy.listener.MethodExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionExecution;
+import org.springframework.transaction.TransactionExecutionListener;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Database cost of each endpoint, tagged with the {@code class} and {@code method} of the controller like the
+ * {@code @Timed} metrics of the resources:
+ * <ul>
+ * <li>{@code petclinic.endpoint.sql.statements} and {@code petclinic.endpoint.sql.rows}: statements executed and rows
+ * fetched by each request, where an N+1 shows up as a jump</li>
+ * <li>{@code petclinic.endpoint.connection.acquire}: wait for each connection taken from the pool</li>
+ * <li>{@code petclinic.endpoint.transaction}: duration of each transaction, by outcome</li>
+ * </ul>
+ * The JDBC events come from the datasource-proxy that datasource-micrometer wraps around the data source, the
+ * transaction ones from the transaction manager. Database work done outside of a request is not recorded.
+ */
+@Component
+public class EndpointSqlMetrics implements WebMvcConfigurer, HandlerInterceptor, QueryExecutionListener,
+    MethodExecutionListener, TransactionExecutionListener {
+
+    private static final ThreadLocal<RequestCost> currentRequest = new ThreadLocal<>();
+
+    // Resolved on use: the listeners are created with the data source, before the registry is customized. Nothing is
+    // recorded without a registry, as in web slice tests
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    public EndpointSqlMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(this);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod handlerMethod) {
+            currentRequest.set(new RequestCost(Tags.of(
+                "class", handlerMethod.getBeanType().getName(),
+                "method", handlerMethod.getMethod().getName())));
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        RequestCost cost = currentRequest.get();
+        if (cost == null) {
+            return;
+        }
+        currentRequest.remove();
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        if (registry == null) {
+            return;
+        }
+        DistributionSummary.builder("petclinic.endpoint.sql.statements")
+            .description("SQL statements executed by a request")
+            .tags(cost.tags)
+            .register(registry)
+            .record(cost.statements);
+        DistributionSummary.builder("petclinic.endpoint.sql.rows")
+            .description("Rows fetched by a request")
+            .tags(cost.tags)
+            .register(registry)
+            .record(cost.rows);
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        RequestCost cost = currentRequest.get();
+        if (cost != null) {
+            cost.statements++;
+        }
+    }
+
+    @Override
+    public void beforeMethod(MethodExecutionContext executionContext) {
+    }
+
+    @Override
+    public void afterMethod(MethodExecutionContext executionContext) {
+        RequestCost cost = currentRequest.get();
+        if (cost == null) {
+            return;
+        }
+        Object target = executionContext.getTarget();
+        String method = executionContext.getMethod().getName();
+        if (target instanceof ResultSet && method.equals("next") && Boolean.TRUE.equals(executionContext.getResult())) {
+            cost.rows++;
+        } else if (target instanceof DataSource && method.equals("getConnection")) {
+            meterRegistry.ifAvailable(registry -> Timer.builder("petclinic.endpoint.connection.acquire")
+                .description("Time waited for a pooled connection")
+                .tags(cost.tags)
+                .register(registry)
+                .record(executionContext.getElapsedTime(), TimeUnit.MILLISECONDS));
+        }
+    }
+
+    @Override
+    public void beforeBegin(TransactionExecution transaction) {
+        RequestCost cost = currentRequest.get();
+        if (cost != null) {
+            cost.transactionStarts.push(System.nanoTime());
+        }
+    }
+
+    @Override
+    public void afterBegin(TransactionExecution transaction, Throwable beginFailure) {
+        RequestCost cost = currentRequest.get();
+        if (cost != null && beginFailure != null) {
+            cost.transactionStarts.poll();
+        }
+    }
+
+    @Override
+    public void afterCommit(TransactionExecution transaction, Throwable commitFailure) {
+        recordTransaction(commitFailure == null ? "commit" : "failed_commit");
+    }
+
+    @Override
+    public void afterRollback(TransactionExecution transaction, Throwable rollbackFailure) {
+        recordTransaction("rollback");
+    }
+
+    private void recordTransaction(String outcome) {
+        RequestCost cost = currentRequest.get();
+        Long start = cost == null ? null : cost.transactionStarts.poll();
+        if (start == null) {
+            return;
+        }
+        long duration = System.nanoTime() - start;
+        meterRegistry.ifAvailable(registry -> Timer.builder("petclinic.endpoint.transaction")
+            .description("Duration of the transactions of a request")
+            .tags(cost.tags)
+            .tag("outcome", outcome)
+            .register(registry)
+            .record(duration, TimeUnit.NANOSECONDS));
+    }
+
+    private static class RequestCost {
+
+        private final Tags tags;
+
+        private final Deque<Long> transactionStarts = new ArrayDeque<>();
+
+        private long statements;
+
+        private long rows;
+
+        RequestCost(Tags tags) {
+            this.tags = tags;
+        }
+    }
+}
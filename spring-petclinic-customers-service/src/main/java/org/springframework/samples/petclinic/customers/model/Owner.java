@@ -16,6 +16,8 @@
 package org.springframework.samples.petclinic.customers.model;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import org.springframework.beans.support.MutableSortDefinition;
@@ -36,10 +38,13 @@ import java.util.*;
  */
 @Entity
 @Table(name = "owners")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "owners")
 public class Owner {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Pooled sequence ids let Hibernate batch inserts, which IDENTITY columns rule out, see OwnerImporter
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "owners_seq")
+    @SequenceGenerator(name = "owners_seq", sequenceName = "owners_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "first_name")
@@ -63,7 +68,12 @@ public class Owner {
     @Digits(fraction = 0, integer = 12)
     private String telephone;
 
-    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.EAGER, mappedBy = "owner")
+    // Checked by the partial updates of OwnerRepository.patch as well as by merges
+    @Version
+    private Integer version;
+
+    @OneToMany(cascade = CascadeType.ALL, fetch = FetchType.LAZY, mappedBy = "owner")
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "ownerPets")
     private Set<Pet> pets;
 
     protected Set<Pet> getPetsInternal() {
@@ -100,6 +110,10 @@ public class Owner {
         return this.id;
     }
 
+    public Integer getVersion() {
+        return this.version;
+    }
+
     public String getFirstName() {
         return this.firstName;
     }
@@ -15,7 +15,22 @@
  */
 package org.springframework.samples.petclinic.customers.model;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository class for <code>Owner</code> domain objects All method names are compliant with Spring Data naming
@@ -27,4 +42,85 @@ import org.springframework.data.jpa.repository.JpaRepository;
  * @author Michael Isvy
  * @author Maciej Szarlinski
  */
-public interface OwnerRepository extends JpaRepository<Owner, Integer> { }
+public interface OwnerRepository extends JpaRepository<Owner, Integer> {
+
+    /**
+     * Retrieve an {@link Owner} with its pets and their types in a single statement.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"pets", "pets.type"})
+    Optional<Owner> findById(Integer id);
+
+    /**
+     * Retrieve all {@link Owner}s with their pets and their types in a single statement.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"pets", "pets.type"})
+    List<Owner> findAll();
+
+    /**
+     * Retrieve the ids of the owners following {@code id} in id order: a keyset page whose cost does not depend on
+     * how far into the table it is.
+     */
+    @Query("SELECT owner.id FROM Owner owner WHERE owner.id > :id ORDER BY owner.id")
+    List<Integer> findIdsAfter(@Param("id") int id, Limit limit);
+
+    /**
+     * Retrieve the {@link Owner}s of a page with their pets and their types in a single statement. The pets cannot
+     * be fetched by the keyset query itself, the limit would then be applied in memory.
+     */
+    @EntityGraph(attributePaths = {"pets", "pets.type"})
+    List<Owner> findByIdInOrderByIdAsc(Collection<Integer> ids);
+
+    /**
+     * Retrieve the owners whose last name starts with {@code prefix}, a range scan of the last name index.
+     */
+    List<OwnerSummary> findByLastNameStartingWith(String prefix, Sort sort, Limit limit);
+
+    /**
+     * Retrieve all the owners, without their pets.
+     */
+    @Query("SELECT new org.springframework.samples.petclinic.customers.model.OwnerSummary("
+        + "owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone) FROM Owner owner")
+    List<OwnerSummary> findAllSummaries();
+
+    /**
+     * Stream all the owners with their pets in owner id order, as flat rows that are neither managed nor held by the
+     * persistence context. Must be consumed within a transaction. MySQL only streams the rows with
+     * {@code useCursorFetch=true} in the JDBC URL, otherwise the driver reads the whole result first.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT new org.springframework.samples.petclinic.customers.model.OwnerPetRow("
+        + "owner.id, owner.firstName, owner.lastName, owner.address, owner.city, owner.telephone,"
+        + " pet.id, pet.name, pet.birthDate, type.id, type.name)"
+        + " FROM Owner owner LEFT JOIN owner.pets pet LEFT JOIN pet.type type ORDER BY owner.id, pet.id")
+    Stream<OwnerPetRow> streamAllWithPets();
+
+    /**
+     * Retrieve an owner without its pets.
+     */
+    Optional<OwnerSummary> findSummaryById(int id);
+
+    /**
+     * Update the fields of an {@link Owner} in a single statement, provided it is still at {@code version}. A
+     * {@code null} field keeps its current value.
+     * <p>
+     * Hibernate cannot tell which rows a bulk update modifies: with the {@code l2cache} profile each patch evicts the
+     * whole {@code owners} second-level cache region, not only this owner.
+     *
+     * @return 1 if the owner was updated, 0 if it does not exist or has been modified since {@code version}
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Owner owner SET owner.firstName = COALESCE(:firstName, owner.firstName),"
+        + " owner.lastName = COALESCE(:lastName, owner.lastName),"
+        + " owner.address = COALESCE(:address, owner.address),"
+        + " owner.city = COALESCE(:city, owner.city),"
+        + " owner.telephone = COALESCE(:telephone, owner.telephone),"
+        + " owner.version = owner.version + 1"
+        + " WHERE owner.id = :id AND owner.version = :version")
+    int patch(@Param("id") int id, @Param("version") int version,
+              @Param("firstName") String firstName, @Param("lastName") String lastName,
+              @Param("address") String address, @Param("city") String city,
+              @Param("telephone") String telephone);
+}
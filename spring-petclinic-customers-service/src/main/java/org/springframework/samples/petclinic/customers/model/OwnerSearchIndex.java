@@ -0,0 +1,80 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.model;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * In-memory index of the owners sorted by last name, answering last name prefix searches without hitting the database.
+ * Enabled by {@code customers.owner-search.in-memory-index=true}.
+ * <p>
+ * The index is loaded at startup and kept up to date by the owners created and updated through this instance only:
+ * with several instances, owners changed through another one are found with their previous last name until restart.
+ * <p>
+ * The names are compared ignoring case, like the default case insensitive collation of the MySQL database.
+ */
+@Component
+@ConditionalOnProperty(prefix = "customers.owner-search", name = "in-memory-index", havingValue = "true")
+public class OwnerSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(OwnerSearchIndex.class);
+
+    private static final char SEPARATOR = '\u0000';
+
+    private final NavigableMap<String, OwnerSummary> byLastName = new ConcurrentSkipListMap<>();
+
+    private final Map<Integer, String> keysById = new ConcurrentHashMap<>();
+
+    public OwnerSearchIndex(OwnerRepository ownerRepository) {
+        ownerRepository.findAllSummaries().forEach(this::put);
+        log.info("Indexed {} owners by last name", keysById.size());
+    }
+
+    /**
+     * @return at most {@code limit} owners whose last name starts with {@code prefix} in any case, ordered by last
+     * name, first name and id like the database search
+     */
+    public List<OwnerSummary> search(String prefix, int limit) {
+        String from = normalize(prefix);
+        return byLastName.subMap(from, true, from + Character.MAX_VALUE, false).values().stream()
+            .limit(limit)
+            .toList();
+    }
+
+    public void put(OwnerSummary owner) {
+        String key = normalize(owner.lastName()) + SEPARATOR + normalize(owner.firstName()) + SEPARATOR
+            + String.format("%010d", owner.id());
+        String previousKey = keysById.put(owner.id(), key);
+        if (previousKey != null && !previousKey.equals(key)) {
+            byLastName.remove(previousKey);
+        }
+        byLastName.put(key, owner);
+    }
+
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,40 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.model;
+
+/**
+ * Columns of an {@link Owner} listed by searches, read without its pets: whether served by the database or by the
+ * {@link OwnerSearchIndex}, the search results have no {@code pets} and link to the owner for them.
+ */
+public record OwnerSummary(
+
+    Integer id,
+
+    String firstName,
+
+    String lastName,
+
+    String address,
+
+    String city,
+
+    String telephone
+) {
+    public OwnerSummary(Owner owner) {
+        this(owner.getId(), owner.getFirstName(), owner.getLastName(), owner.getAddress(), owner.getCity(),
+            owner.getTelephone());
+    }
+}
@@ -17,6 +17,9 @@ package org.springframework.samples.petclinic.customers.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.Hibernate;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.springframework.core.style.ToStringCreator;
 
 import java.util.Date;
@@ -33,9 +36,11 @@ import java.util.Objects;
  */
 @Entity
 @Table(name = "pets")
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "pets")
 public class Pet {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pets_seq")
+    @SequenceGenerator(name = "pets_seq", sequenceName = "pets_seq", allocationSize = 50)
     private Integer id;
 
     @Column(name = "name")
@@ -45,24 +50,29 @@ public class Pet {
     @Temporal(TemporalType.DATE)
     private Date birthDate;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "type_id")
     private PetType type;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "owner_id")
     @JsonIgnore
     private Owner owner;
 
+    @Version
+    private Integer version;
+
     @Override
     public String toString() {
+        // The lazy associations are only described once loaded, so that logging a pet never runs a query
+        boolean ownerLoaded = this.owner != null && Hibernate.isInitialized(this.owner);
         return new ToStringCreator(this)
             .append("id", this.getId())
             .append("name", this.getName())
             .append("birthDate", this.getBirthDate())
-            .append("type", this.getType().getName())
-            .append("ownerFirstname", this.getOwner().getFirstName())
-            .append("ownerLastname", this.getOwner().getLastName())
+            .append("type", this.type != null && Hibernate.isInitialized(this.type) ? this.type.getName() : null)
+            .append("ownerFirstname", ownerLoaded ? this.owner.getFirstName() : null)
+            .append("ownerLastname", ownerLoaded ? this.owner.getLastName() : null)
             .toString();
     }
 
@@ -70,6 +80,10 @@ public class Pet {
         return this.id;
     }
 
+    public Integer getVersion() {
+        return this.version;
+    }
+
     public String getName() {
         return this.name;
     }
@@ -15,12 +15,16 @@
  */
 package org.springframework.samples.petclinic.customers.model;
 
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 /**
  * Repository class for <code>Pet</code> domain objects All method names are compliant with Spring Data naming
@@ -34,6 +38,13 @@ import org.springframework.data.repository.query.Param;
  */
 public interface PetRepository extends JpaRepository<Pet, Integer> {
 
+    /**
+     * Retrieve a {@link Pet} with its type and owner in a single statement.
+     */
+    @Override
+    @EntityGraph(attributePaths = {"type", "owner"})
+    Optional<Pet> findById(Integer id);
+
     /**
      * Retrieve all {@link PetType}s from the data store.
      * @return a Collection of {@link PetType}s.
@@ -44,6 +55,24 @@ public interface PetRepository extends JpaRepository<Pet, Integer> {
     @Query("FROM PetType ptype WHERE ptype.id = :typeId")
     Optional<PetType> findPetTypeById(@Param("typeId") int typeId);
 
+    /**
+     * Update the fields of a {@link Pet} in a single statement, provided it is still at {@code version}. A
+     * {@code null} field keeps its current value.
+     * <p>
+     * Hibernate cannot tell which rows a bulk update modifies: with the {@code l2cache} profile each patch evicts the
+     * whole {@code pets} second-level cache region, not only this pet.
+     *
+     * @return 1 if the pet was updated, 0 if it does not exist or has been modified since {@code version}
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE Pet pet SET pet.name = COALESCE(:name, pet.name),"
+        + " pet.birthDate = COALESCE(:birthDate, pet.birthDate),"
+        + " pet.type.id = COALESCE(:typeId, pet.type.id),"
+        + " pet.version = pet.version + 1"
+        + " WHERE pet.id = :id AND pet.version = :version")
+    int patch(@Param("id") int id, @Param("version") int version,
+              @Param("name") String name, @Param("birthDate") Date birthDate, @Param("typeId") Integer typeId);
 
 }
 
@@ -15,7 +15,10 @@
  */
 package org.springframework.samples.petclinic.customers.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 /**
  * @author Juergen Hoeller
@@ -24,6 +27,9 @@ import jakarta.persistence.*;
  */
 @Entity
 @Table(name = "types")
+@Cache(usage = CacheConcurrencyStrategy.READ_ONLY, region = "petTypes")
+// Pets assembled from the second-level cache reference their type through a lazy proxy
+@JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class PetType {
 
     @Id
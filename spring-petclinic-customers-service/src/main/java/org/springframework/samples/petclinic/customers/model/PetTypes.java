@@ -0,0 +1,103 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.model;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * In-memory snapshot of the {@link PetType}s, which practically never change, so that reading them does not hit the
+ * database. The snapshot is loaded at startup and replaced as a whole by {@link #refresh()}.
+ */
+@Component
+public class PetTypes {
+
+    private static final Logger log = LoggerFactory.getLogger(PetTypes.class);
+
+    private final PetRepository petRepository;
+
+    private final Counter hits;
+
+    private final Counter misses;
+
+    private volatile Snapshot snapshot;
+
+    public PetTypes(PetRepository petRepository, MeterRegistry meterRegistry) {
+        this.petRepository = petRepository;
+        this.hits = lookupCounter("hit", meterRegistry);
+        this.misses = lookupCounter("miss", meterRegistry);
+        refresh();
+        Gauge.builder("petclinic.pettypes.size", this, petTypes -> petTypes.snapshot.sorted().size())
+            .description("Pet types held in memory")
+            .register(meterRegistry);
+    }
+
+    /**
+     * @return all the pet types, ordered by name
+     */
+    public List<PetType> findAll() {
+        hits.increment();
+        return snapshot.sorted();
+    }
+
+    /**
+     * Looks the pet type up in the snapshot. An unknown id falls back to the database and triggers a refresh when the
+     * type turns out to have been added since the snapshot was taken.
+     */
+    public Optional<PetType> findById(int typeId) {
+        PetType[] byId = snapshot.byId();
+        if (typeId >= 0 && typeId < byId.length && byId[typeId] != null) {
+            hits.increment();
+            return Optional.of(byId[typeId]);
+        }
+        misses.increment();
+        Optional<PetType> petType = petRepository.findPetTypeById(typeId);
+        petType.ifPresent(added -> refresh());
+        return petType;
+    }
+
+    /**
+     * Reloads the snapshot from the database
+     *
+     * @return the number of pet types loaded
+     */
+    public int refresh() {
+        List<PetType> sorted = List.copyOf(petRepository.findPetTypes());
+        int maxId = sorted.stream().mapToInt(PetType::getId).max().orElse(-1);
+        PetType[] byId = new PetType[maxId + 1];
+        sorted.forEach(petType -> byId[petType.getId()] = petType);
+        this.snapshot = new Snapshot(byId, sorted);
+        log.info("Loaded {} pet types", sorted.size());
+        return sorted.size();
+    }
+
+    private static Counter lookupCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("petclinic.pettypes.lookups")
+            .description("Pet type lookups served from memory (hit) or from the database (miss)")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    private record Snapshot(PetType[] byId, List<PetType> sorted) {
+    }
+}
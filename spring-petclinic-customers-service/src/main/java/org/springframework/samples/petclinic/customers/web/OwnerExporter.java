@@ -0,0 +1,123 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.samples.petclinic.customers.model.OwnerPetRow;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes all the owners with their pets as newline-delimited JSON, one owner per line in id order.
+ * <p>
+ * The rows are read through a database cursor and each owner is written as soon as its last row has been read, so
+ * memory does not depend on the number of owners. The output is flushed every {@value #FLUSH_INTERVAL} owners rather
+ * than after each one, which would send a tiny chunk, or a gzip block, per owner. Pets are written in the format
+ * {@link OwnerImporter} reads.
+ */
+@Component
+class OwnerExporter {
+
+    static final int FLUSH_INTERVAL = 100;
+
+    private final OwnerRepository ownerRepository;
+
+    private final ObjectMapper objectMapper;
+
+    private final ObjectWriter ownerWriter;
+
+    OwnerExporter(OwnerRepository ownerRepository, ObjectMapper objectMapper) {
+        this.ownerRepository = ownerRepository;
+        this.objectMapper = objectMapper;
+        this.ownerWriter = objectMapper.writerFor(ExportedOwner.class)
+            .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    }
+
+    /**
+     * @return the number of owners written; {@code ndjson} is closed
+     */
+    @Transactional(readOnly = true)
+    public int export(OutputStream ndjson) throws IOException {
+        int exported = 0;
+        try (JsonGenerator generator = objectMapper.createGenerator(ndjson);
+             Stream<OwnerPetRow> rows = ownerRepository.streamAllWithPets()) {
+            ExportedOwner owner = null;
+            for (Iterator<OwnerPetRow> iterator = rows.iterator(); iterator.hasNext(); ) {
+                OwnerPetRow row = iterator.next();
+                if (owner == null || !owner.id().equals(row.ownerId())) {
+                    if (owner != null) {
+                        exported = write(generator, owner, exported);
+                    }
+                    owner = new ExportedOwner(row);
+                }
+                if (row.petId() != null) {
+                    owner.pets().add(new ExportedPet(row));
+                }
+            }
+            if (owner != null) {
+                exported = write(generator, owner, exported);
+            }
+        }
+        return exported;
+    }
+
+    /**
+     * @return the number of owners written, including this one
+     */
+    private int write(JsonGenerator generator, ExportedOwner owner, int exported) throws IOException {
+        ownerWriter.writeValue(generator, owner);
+        generator.writeRaw('\n');
+        if ((exported + 1) % FLUSH_INTERVAL == 0) {
+            generator.flush();
+        }
+        return exported + 1;
+    }
+
+    record ExportedOwner(Integer id, String firstName, String lastName, String address, String city,
+                         String telephone, List<ExportedPet> pets) {
+
+        ExportedOwner(OwnerPetRow row) {
+            this(row.ownerId(), row.firstName(), row.lastName(), row.address(), row.city(), row.telephone(),
+                new ArrayList<>());
+        }
+    }
+
+    record ExportedPet(Integer id, String name, @JsonFormat(pattern = "yyyy-MM-dd") LocalDate birthDate,
+                       ExportedPetType type) {
+
+        ExportedPet(OwnerPetRow row) {
+            this(row.petId(), row.petName(),
+                row.birthDate() == null ? null : new java.sql.Date(row.birthDate().getTime()).toLocalDate(),
+                new ExportedPetType(row.typeId(), row.typeName()));
+        }
+    }
+
+    record ExportedPetType(Integer id, String name) {
+    }
+}
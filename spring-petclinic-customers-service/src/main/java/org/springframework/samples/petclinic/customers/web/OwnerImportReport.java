@@ -0,0 +1,42 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.web;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk import.
+ *
+ * @param imported  owners written, pets included
+ * @param failed    lines rejected, whether malformed, invalid or refused by the database
+ * @param errors    why lines were rejected, the first {@value OwnerImporter#MAX_REPORTED_ERRORS} only
+ */
+record OwnerImportReport(
+
+    int imported,
+
+    int failed,
+
+    List<RecordError> errors
+) {
+
+    /**
+     * @param line     1-based line number in the imported stream
+     * @param message  reason for rejecting the line
+     */
+    record RecordError(int line, String message) {
+    }
+}
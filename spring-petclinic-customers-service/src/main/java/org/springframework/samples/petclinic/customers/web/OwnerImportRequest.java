@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.List;
+
+/**
+ * One line of a bulk import: an owner with the pets to create along with it.
+ */
+record OwnerImportRequest(@NotBlank String firstName,
+                          @NotBlank String lastName,
+                          @NotBlank String address,
+                          @NotBlank String city,
+                          @NotBlank
+                          @Digits(fraction = 0, integer = 12)
+                          String telephone,
+                          List<@NotNull @Valid PetRequest> pets
+) {
+
+    OwnerRequest owner() {
+        return new OwnerRequest(firstName, lastName, address, city, telephone);
+    }
+
+    List<PetRequest> petRequests() {
+        return pets == null ? List.of() : pets;
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.customers.model.OwnerSearchIndex;
+import org.springframework.samples.petclinic.customers.model.OwnerSummary;
+import org.springframework.samples.petclinic.customers.model.Pet;
+import org.springframework.samples.petclinic.customers.model.PetType;
+import org.springframework.samples.petclinic.customers.model.PetTypes;
+import org.springframework.samples.petclinic.customers.web.mapper.OwnerEntityMapper;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Imports owners with their pets from newline-delimited JSON, one {@link OwnerImportRequest} per line.
+ * <p>
+ * Valid lines are written in chunks, each chunk in its own transaction and flushed as JDBC batches, so a failure
+ * only loses the chunk at hand and memory stays bounded by the chunk size. When the database refuses a chunk its
+ * owners are retried one by one to tell the faulty lines apart. Rejected lines are reported, never fatal.
+ */
+@Component
+class OwnerImporter {
+
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(OwnerImporter.class);
+
+    private final OwnerRepository ownerRepository;
+    private final OwnerEntityMapper ownerEntityMapper;
+    private final PetTypes petTypes;
+    private final Optional<OwnerSearchIndex> ownerSearchIndex;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final Counter importedOwners;
+    private final Counter failedOwners;
+
+    OwnerImporter(OwnerRepository ownerRepository, OwnerEntityMapper ownerEntityMapper, PetTypes petTypes,
+                  Optional<OwnerSearchIndex> ownerSearchIndex, ObjectMapper objectMapper, Validator validator,
+                  EntityManager entityManager, PlatformTransactionManager transactionManager,
+                  MeterRegistry meterRegistry) {
+        this.ownerRepository = ownerRepository;
+        this.ownerEntityMapper = ownerEntityMapper;
+        this.petTypes = petTypes;
+        this.ownerSearchIndex = ownerSearchIndex;
+        this.objectMapper = objectMapper;
+        this.validator = validator;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importedOwners = Counter.builder("petclinic.owner.import")
+            .description("Owners read by bulk imports")
+            .tag("outcome", "imported")
+            .register(meterRegistry);
+        this.failedOwners = Counter.builder("petclinic.owner.import")
+            .description("Owners read by bulk imports")
+            .tag("outcome", "failed")
+            .register(meterRegistry);
+    }
+
+    OwnerImportReport importOwners(Reader ndjson, int chunkSize) throws IOException {
+        Progress progress = new Progress();
+        List<PendingOwner> chunk = new ArrayList<>(chunkSize);
+        BufferedReader lines = new BufferedReader(ndjson);
+        int lineNumber = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            PendingOwner owner = parse(lineNumber, line, progress);
+            if (owner != null) {
+                chunk.add(owner);
+            }
+            if (chunk.size() == chunkSize) {
+                write(chunk, progress);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(chunk, progress);
+        }
+        log.info("Owner import done: {} imported, {} failed", progress.imported, progress.failed);
+        return new OwnerImportReport(progress.imported, progress.failed, progress.errors);
+    }
+
+    private PendingOwner parse(int line, String json, Progress progress) {
+        OwnerImportRequest request;
+        try {
+            request = objectMapper.readValue(json, OwnerImportRequest.class);
+        } catch (JsonProcessingException ex) {
+            progress.reject(line, "Malformed owner: " + ex.getOriginalMessage());
+            return null;
+        }
+        if (request == null) {
+            progress.reject(line, "Malformed owner: null");
+            return null;
+        }
+        Set<ConstraintViolation<OwnerImportRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            progress.reject(line, violations.stream()
+                .map(violation -> violation.getPropertyPath() + " " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", ")));
+            return null;
+        }
+        List<PetType> types = new ArrayList<>();
+        for (PetRequest pet : request.petRequests()) {
+            Optional<PetType> type = petTypes.findById(pet.typeId());
+            if (type.isEmpty()) {
+                progress.reject(line, "Unknown pet type " + pet.typeId());
+                return null;
+            }
+            types.add(type.get());
+        }
+        return new PendingOwner(line, request, types);
+    }
+
+    private void write(List<PendingOwner> chunk, Progress progress) {
+        try {
+            progress.imported(transactionTemplate.execute(status -> save(chunk)));
+        } catch (DataAccessException ex) {
+            log.warn("Owner import chunk up to line {} failed, retrying its owners one by one: {}",
+                chunk.get(chunk.size() - 1).line(), ex.getMostSpecificCause().getMessage());
+            for (PendingOwner owner : chunk) {
+                try {
+                    progress.imported(transactionTemplate.execute(status -> save(List.of(owner))));
+                } catch (DataAccessException ownerEx) {
+                    progress.reject(owner.line(), ownerEx.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+        log.info("Owner import up to line {}: {} imported, {} failed",
+            chunk.get(chunk.size() - 1).line(), progress.imported, progress.failed);
+    }
+
+    private List<Owner> save(List<PendingOwner> chunk) {
+        // Entities are built inside the transaction: a rolled back chunk must not leave ids on the retried owners
+        List<Owner> owners = chunk.stream().map(this::toOwner).toList();
+        ownerRepository.saveAll(owners);
+        ownerRepository.flush();
+        entityManager.clear();
+        return owners;
+    }
+
+    private Owner toOwner(PendingOwner pending) {
+        Owner owner = ownerEntityMapper.map(new Owner(), pending.request().owner());
+        List<PetRequest> pets = pending.request().petRequests();
+        for (int i = 0; i < pets.size(); i++) {
+            Pet pet = new Pet();
+            pet.setName(pets.get(i).name());
+            pet.setBirthDate(pets.get(i).birthDate());
+            pet.setType(pending.types().get(i));
+            owner.addPet(pet);
+        }
+        return owner;
+    }
+
+    private record PendingOwner(int line, OwnerImportRequest request, List<PetType> types) {
+    }
+
+    private class Progress {
+
+        private int imported;
+        private int failed;
+        private final List<OwnerImportReport.RecordError> errors = new ArrayList<>();
+
+        void imported(List<Owner> owners) {
+            imported += owners.size();
+            importedOwners.increment(owners.size());
+            ownerSearchIndex.ifPresent(index -> owners.forEach(owner -> index.put(new OwnerSummary(owner))));
+        }
+
+        void reject(int line, String message) {
+            failed++;
+            failedOwners.increment();
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new OwnerImportReport.RecordError(line, message));
+            }
+        }
+    }
+}
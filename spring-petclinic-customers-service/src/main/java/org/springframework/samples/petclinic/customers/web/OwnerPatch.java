@@ -0,0 +1,37 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+/**
+ * Fields to change on an owner, {@code null} for the ones to keep. Once applied the owner is at {@code version + 1}.
+ *
+ * @param version  version of the owner the changes are based on
+ */
+record OwnerPatch(@NotNull Integer version,
+                  @Pattern(regexp = NOT_BLANK) String firstName,
+                  @Pattern(regexp = NOT_BLANK) String lastName,
+                  @Pattern(regexp = NOT_BLANK) String address,
+                  @Pattern(regexp = NOT_BLANK) String city,
+                  @Digits(fraction = 0, integer = 12)
+                  String telephone
+) {
+
+    static final String NOT_BLANK = ".*\\S.*";
+}
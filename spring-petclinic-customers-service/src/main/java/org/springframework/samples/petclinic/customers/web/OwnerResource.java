@@ -16,18 +16,36 @@
 package org.springframework.samples.petclinic.customers.web;
 
 import io.micrometer.core.annotation.Timed;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotBlank;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.customers.web.mapper.OwnerEntityMapper;
 import org.springframework.samples.petclinic.customers.model.Owner;
 import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.customers.model.OwnerSearchIndex;
+import org.springframework.samples.petclinic.customers.model.OwnerSummary;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 import java.util.Optional;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * @author Juergen Hoeller
@@ -43,12 +61,22 @@ class OwnerResource {
 
     private static final Logger log = LoggerFactory.getLogger(OwnerResource.class);
 
+    private static final Sort SEARCH_ORDER = Sort.by("lastName", "firstName", "id");
+
     private final OwnerRepository ownerRepository;
     private final OwnerEntityMapper ownerEntityMapper;
+    private final Optional<OwnerSearchIndex> ownerSearchIndex;
+    private final OwnerImporter ownerImporter;
+    private final OwnerExporter ownerExporter;
 
-    OwnerResource(OwnerRepository ownerRepository, OwnerEntityMapper ownerEntityMapper) {
+    OwnerResource(OwnerRepository ownerRepository, OwnerEntityMapper ownerEntityMapper,
+                  Optional<OwnerSearchIndex> ownerSearchIndex, OwnerImporter ownerImporter,
+                  OwnerExporter ownerExporter) {
         this.ownerRepository = ownerRepository;
         this.ownerEntityMapper = ownerEntityMapper;
+        this.ownerSearchIndex = ownerSearchIndex;
+        this.ownerImporter = ownerImporter;
+        this.ownerExporter = ownerExporter;
     }
 
     /**
@@ -58,7 +86,18 @@ class OwnerResource {
     @ResponseStatus(HttpStatus.CREATED)
     public Owner createOwner(@Valid @RequestBody OwnerRequest ownerRequest) {
         Owner owner = ownerEntityMapper.map(new Owner(), ownerRequest);
-        return ownerRepository.save(owner);
+        Owner savedOwner = ownerRepository.save(owner);
+        ownerSearchIndex.ifPresent(index -> index.put(new OwnerSummary(savedOwner)));
+        return savedOwner;
+    }
+
+    /**
+     * Import Owners with their Pets from newline-delimited JSON, one owner per line
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public OwnerImportReport importOwners(InputStream ndjson,
+                                          @RequestParam(value = "chunkSize", defaultValue = "500") @Min(1) @Max(5000) int chunkSize) throws IOException {
+        return ownerImporter.importOwners(new InputStreamReader(ndjson, StandardCharsets.UTF_8), chunkSize);
     }
 
     /**
@@ -69,6 +108,18 @@ class OwnerResource {
         return ownerRepository.findById(ownerId);
     }
 
+    /**
+     * Search Owners by the beginning of their last name, e.g. for typeahead. The results are {@link OwnerSummary}
+     * summaries, without the pets of the owners.
+     */
+    @GetMapping("/search")
+    public List<OwnerSummary> search(@RequestParam("lastName") @NotBlank String lastName,
+                                     @RequestParam(value = "limit", defaultValue = "10") @Min(1) @Max(50) int limit) {
+        return ownerSearchIndex
+            .map(index -> index.search(lastName, limit))
+            .orElseGet(() -> ownerRepository.findByLastNameStartingWith(lastName, SEARCH_ORDER, Limit.of(limit)));
+    }
+
     /**
      * Read List of Owners
      */
@@ -78,15 +129,67 @@ class OwnerResource {
     }
 
     /**
-     * Update Owner
+     * Export all Owners with their Pets as newline-delimited JSON, gzipped when the client accepts it
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public void exportOwners(@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, defaultValue = "") String acceptEncoding,
+                             HttpServletResponse response) throws IOException {
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        OutputStream ndjson = response.getOutputStream();
+        if (acceptEncoding.contains("gzip")) {
+            response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+            ndjson = new GZIPOutputStream(ndjson);
+        }
+        int exported = ownerExporter.export(ndjson);
+        log.info("Exported {} owners", exported);
+    }
+
+    /**
+     * Read a page of Owners, starting after the {@code cursor} returned with the previous page
+     */
+    @GetMapping(params = "size")
+    public OwnerPage findPage(@RequestParam(value = "cursor", required = false) String cursor,
+                              @RequestParam("size") @Min(1) @Max(100) int size) {
+        int afterId = OwnerPage.decodeCursor(cursor);
+        // One more id than the page size tells whether there is a next page
+        List<Integer> ids = ownerRepository.findIdsAfter(afterId, Limit.of(size + 1));
+        boolean hasNext = ids.size() > size;
+        if (ids.isEmpty()) {
+            return OwnerPage.of(List.of(), false);
+        }
+        return OwnerPage.of(ownerRepository.findByIdInOrderByIdAsc(hasNext ? ids.subList(0, size) : ids), hasNext);
+    }
+
+    /**
+     * Update Owner, read in the writing transaction so that the replica cannot hand out a stale version of it
      */
     @PutMapping(value = "/{ownerId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Transactional
     public void updateOwner(@PathVariable("ownerId") @Min(1) int ownerId, @Valid @RequestBody OwnerRequest ownerRequest) {
         final Owner ownerModel = ownerRepository.findById(ownerId).orElseThrow(() -> new ResourceNotFoundException("Owner " + ownerId + " not found"));
 
         ownerEntityMapper.map(ownerModel, ownerRequest);
         log.info("Saving owner {}", ownerModel);
         ownerRepository.save(ownerModel);
+        ownerSearchIndex.ifPresent(index -> index.put(new OwnerSummary(ownerModel)));
+    }
+
+    /**
+     * Update some fields of an Owner in a single statement, unless it has been modified since the given version
+     */
+    @PatchMapping(value = "/{ownerId}")
+    public ResponseEntity<Void> patchOwner(@PathVariable("ownerId") @Min(1) int ownerId, @Valid @RequestBody OwnerPatch patch) {
+        int updated = ownerRepository.patch(ownerId, patch.version(),
+            patch.firstName(), patch.lastName(), patch.address(), patch.city(), patch.telephone());
+        if (updated == 0) {
+            if (!ownerRepository.existsById(ownerId)) {
+                throw new ResourceNotFoundException("Owner " + ownerId + " not found");
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Owner " + ownerId + " has been modified since version " + patch.version());
+        }
+        ownerSearchIndex.ifPresent(index -> ownerRepository.findSummaryById(ownerId).ifPresent(index::put));
+        return ResponseEntity.noContent().build();
     }
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+
+import java.util.Date;
+
+/**
+ * Fields to change on a pet, {@code null} for the ones to keep. Once applied the pet is at {@code version + 1}.
+ *
+ * @param version  version of the pet the changes are based on
+ */
+record PetPatch(@NotNull Integer version,
+                @Pattern(regexp = OwnerPatch.NOT_BLANK) String name,
+                @JsonFormat(pattern = "yyyy-MM-dd")
+                Date birthDate,
+                Integer typeId
+) {
+}
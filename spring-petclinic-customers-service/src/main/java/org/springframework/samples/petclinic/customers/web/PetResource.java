@@ -16,12 +16,16 @@
 package org.springframework.samples.petclinic.customers.web;
 
 import io.micrometer.core.annotation.Timed;
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.customers.model.*;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 
@@ -40,19 +44,26 @@ class PetResource {
 
     private final PetRepository petRepository;
     private final OwnerRepository ownerRepository;
+    private final PetTypes petTypes;
 
-    PetResource(PetRepository petRepository, OwnerRepository ownerRepository) {
+    PetResource(PetRepository petRepository, OwnerRepository ownerRepository, PetTypes petTypes) {
         this.petRepository = petRepository;
         this.ownerRepository = ownerRepository;
+        this.petTypes = petTypes;
     }
 
     @GetMapping("/petTypes")
     public List<PetType> getPetTypes() {
-        return petRepository.findPetTypes();
+        return petTypes.findAll();
     }
 
+    /**
+     * Create a Pet. The owner is read in the writing transaction, from the primary database: a replica may not have
+     * it yet
+     */
     @PostMapping("/owners/{ownerId}/pets")
     @ResponseStatus(HttpStatus.CREATED)
+    @Transactional
     public Pet processCreationForm(
         @RequestBody PetRequest petRequest,
         @PathVariable("ownerId") @Min(1) int ownerId) {
@@ -65,20 +76,42 @@ class PetResource {
         return save(pet, petRequest);
     }
 
+    /**
+     * Update a Pet, read in the writing transaction so that the replica cannot hand out a stale version of it
+     */
     @PutMapping("/owners/*/pets/{petId}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
+    @Transactional
     public void processUpdateForm(@RequestBody PetRequest petRequest) {
         int petId = petRequest.id();
         Pet pet = findPetById(petId);
         save(pet, petRequest);
     }
 
+    /**
+     * Update some fields of a Pet in a single statement, unless it has been modified since the given version
+     */
+    @PatchMapping("/owners/*/pets/{petId}")
+    public ResponseEntity<Void> patchPet(@PathVariable("petId") @Min(1) int petId, @Valid @RequestBody PetPatch patch) {
+        if (patch.typeId() != null && petTypes.findById(patch.typeId()).isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Unknown pet type " + patch.typeId());
+        }
+        int updated = petRepository.patch(petId, patch.version(), patch.name(), patch.birthDate(), patch.typeId());
+        if (updated == 0) {
+            if (!petRepository.existsById(petId)) {
+                throw new ResourceNotFoundException("Pet " + petId + " not found");
+            }
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Pet " + petId + " has been modified since version " + patch.version());
+        }
+        return ResponseEntity.noContent().build();
+    }
+
     private Pet save(final Pet pet, final PetRequest petRequest) {
 
         pet.setName(petRequest.name());
         pet.setBirthDate(petRequest.birthDate());
 
-        petRepository.findPetTypeById(petRequest.typeId())
+        petTypes.findById(petRequest.typeId())
             .ifPresent(pet::setType);
 
         log.info("Saving pet {}", pet);
@@ -16,6 +16,7 @@ CREATE TABLE IF NOT EXISTS owners (
   address VARCHAR(255),
   city VARCHAR(80),
   telephone VARCHAR(20),
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
   INDEX(last_name)
 ) engine=InnoDB;
 
@@ -25,7 +26,36 @@ CREATE TABLE IF NOT EXISTS pets (
   birth_date DATE,
   type_id INT(4) UNSIGNED NOT NULL,
   owner_id INT(4) UNSIGNED NOT NULL,
+  version INT(4) UNSIGNED NOT NULL DEFAULT 0,
   INDEX(name),
   FOREIGN KEY (owner_id) REFERENCES owners(id),
   FOREIGN KEY (type_id) REFERENCES types(id)
 ) engine=InnoDB;
+
+-- Owners and pets tables created before optimistic locking have no version column
+SET @owners_version = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE owners ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'owners' AND column_name = 'version');
+PREPARE add_owners_version FROM @owners_version;
+EXECUTE add_owners_version;
+DEALLOCATE PREPARE add_owners_version;
+
+SET @pets_version = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE pets ADD COLUMN version INT(4) UNSIGNED NOT NULL DEFAULT 0', 'DO 0')
+  FROM information_schema.columns
+  WHERE table_schema = DATABASE() AND table_name = 'pets' AND column_name = 'version');
+PREPARE add_pets_version FROM @pets_version;
+EXECUTE add_pets_version;
+DEALLOCATE PREPARE add_pets_version;
+
+-- MySQL has no sequences: Hibernate emulates owners_seq and pets_seq with single row tables.
+-- Its pooled optimizer hands out the block next_val - 49 .. next_val, so a table created next to existing rows
+-- starts at MAX(id) + 50: the first id handed out is MAX(id) + 1
+CREATE TABLE IF NOT EXISTS owners_seq (
+  next_val BIGINT
+) engine=InnoDB;
+INSERT INTO owners_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM owners WHERE NOT EXISTS (SELECT * FROM owners_seq);
+
+CREATE TABLE IF NOT EXISTS pets_seq (
+  next_val BIGINT
+) engine=InnoDB;
+INSERT INTO pets_seq (next_val) SELECT COALESCE(MAX(id), 0) + 50 FROM pets WHERE NOT EXISTS (SELECT * FROM pets_seq);
@@ -0,0 +1,46 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class EndpointSqlMetricsTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void recordDatabaseCostByControllerMethod() throws Exception {
+        mvc.perform(get("/owners/6")).andExpect(status().isOk());
+        mvc.perform(get("/owners/6")).andExpect(status().isOk());
+
+        DistributionSummary statements = meterRegistry.get("petclinic.endpoint.sql.statements")
+            .tag("method", "findOwner").summary();
+        assertThat(statements.count()).isEqualTo(2);
+        assertThat(statements.max()).isPositive();
+        // Jean Coleman and her two pets
+        assertThat(meterRegistry.get("petclinic.endpoint.sql.rows").tag("method", "findOwner").summary().max())
+            .isGreaterThanOrEqualTo(2);
+        assertThat(meterRegistry.get("petclinic.endpoint.connection.acquire").tag("method", "findOwner").timer().count())
+            .isGreaterThanOrEqualTo(2);
+        Timer transactions = meterRegistry.get("petclinic.endpoint.transaction")
+            .tags("method", "findOwner", "outcome", "commit").timer();
+        assertThat(transactions.count()).isGreaterThanOrEqualTo(2);
+    }
+}
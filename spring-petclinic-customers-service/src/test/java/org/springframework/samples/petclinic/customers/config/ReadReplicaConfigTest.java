@@ -0,0 +1,139 @@
+package org.springframework.samples.petclinic.customers.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.replica.ReadReplicaDataSource;
+import org.springframework.samples.petclinic.replica.ReplicaLagMonitor;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Routes between two in-memory HSQLDB databases: the primary initialized by the test profile and a replica holding
+ * the same sample data except for the first name of owner 1.
+ */
+@SpringBootTest(properties = {
+    "petclinic.datasource.replica.url=" + ReadReplicaConfigTest.REPLICA_URL,
+    "petclinic.datasource.replica.username=sa",
+    "petclinic.datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+    "petclinic.datasource.replica.check-interval=1h"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadReplicaConfigTest {
+
+    static final String REPLICA_URL = "jdbc:hsqldb:mem:replica";
+
+    private static final JdbcTemplate replica =
+        new JdbcTemplate(new SingleConnectionDataSource(REPLICA_URL, "sa", "", true));
+
+    @Autowired
+    OwnerRepository ownerRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    MockMvc mvc;
+
+    private ReplicaLagMonitor lagMonitor;
+
+    @BeforeAll
+    static void createReplica() {
+        new ResourceDatabasePopulator(
+            new ClassPathResource("db/hsqldb/schema.sql"), new ClassPathResource("db/hsqldb/data.sql"))
+            .execute(replica.getDataSource());
+        replica.execute("CREATE TABLE replica_lag (seconds INTEGER)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replica.update("UPDATE owners SET first_name = 'Replica' WHERE id = 1");
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lagMonitor = dataSource.unwrap(ReadReplicaDataSource.class).getLagMonitor();
+    }
+
+    @AfterEach
+    void catchUp() {
+        replica.update("UPDATE replica_lag SET seconds = 0");
+        lagMonitor.check();
+    }
+
+    @Test
+    void readsFromReplicaAndWritesToPrimary() {
+        lagMonitor.check();
+
+        assertThat(ownerRepository.findById(1)).map(Owner::getFirstName).hasValue("Replica");
+
+        Owner owner = ownerRepository.findById(2).orElseThrow();
+        owner.setCity("Verona");
+        owner = ownerRepository.save(owner);
+
+        assertThat(replica.queryForObject("SELECT city FROM owners WHERE id = 2", String.class)).isEqualTo("Sun Prairie");
+        owner.setCity("Sun Prairie");
+        ownerRepository.save(owner);
+    }
+
+    @Test
+    void readsFromPrimaryWhileReplicaLags() {
+        replica.update("UPDATE replica_lag SET seconds = 60");
+        lagMonitor.check();
+
+        assertThat(lagMonitor.isUsable()).isFalse();
+        assertThat(ownerRepository.findById(1)).map(Owner::getFirstName).hasValue("George");
+    }
+
+    @Test
+    void createsPetOfOwnerNotYetOnReplica() throws Exception {
+        lagMonitor.check();
+        Owner owner = new Owner();
+        owner.setFirstName("Lena");
+        owner.setLastName("Fischer");
+        owner.setAddress("12 Lake View");
+        owner.setCity("Madison");
+        owner.setTelephone("6085550199");
+        owner = ownerRepository.save(owner);
+        assertThat(replica.queryForObject("SELECT COUNT(*) FROM owners WHERE id = ?", Integer.class, owner.getId())).isZero();
+
+        mvc.perform(post("/owners/{ownerId}/pets", owner.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"Bella\", \"birthDate\": \"2020-05-01\", \"typeId\": 2}"))
+            .andExpect(status().isCreated());
+    }
+
+    @Test
+    void updatesOwnerReadFromPrimary() throws Exception {
+        lagMonitor.check();
+        JdbcTemplate primary = new JdbcTemplate(dataSource);
+        // The replica still has the version before the last update of owner 3
+        primary.update("UPDATE owners SET version = version + 1 WHERE id = 3");
+
+        mvc.perform(put("/owners/{ownerId}", 3)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                    {"firstName": "Eduardo", "lastName": "Rodriquez", "address": "2693 Commerce St.",
+                     "city": "Verona", "telephone": "6085558763"}"""))
+            .andExpect(status().isNoContent());
+
+        assertThat(primary.queryForObject("SELECT city FROM owners WHERE id = 3", String.class)).isEqualTo("Verona");
+    }
+}
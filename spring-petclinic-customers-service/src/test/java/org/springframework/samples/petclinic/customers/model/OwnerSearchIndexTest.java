@@ -0,0 +1,62 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+class OwnerSearchIndexTest {
+
+    private final OwnerRepository ownerRepository = mock(OwnerRepository.class);
+
+    @Test
+    void findsOwnersByLastNamePrefixInLastNameFirstNameOrder() {
+        given(ownerRepository.findAllSummaries()).willReturn(List.of(
+            owner(1, "George", "Franklin"), owner(4, "Harold", "Davis"), owner(2, "Betty", "Davis"),
+            owner(3, "Eduardo", "Rodriquez")));
+        OwnerSearchIndex index = new OwnerSearchIndex(ownerRepository);
+
+        assertEquals(List.of(2, 4), ids(index.search("Da", 10)));
+        assertEquals(List.of(2), ids(index.search("Davis", 1)));
+        assertEquals(List.of(), ids(index.search("Z", 10)));
+    }
+
+    @Test
+    void findsOwnersIgnoringCase() {
+        given(ownerRepository.findAllSummaries()).willReturn(List.of(
+            owner(1, "George", "Franklin"), owner(2, "betty", "davis"), owner(3, "Harold", "Davis"),
+            owner(4, "Ben", "DAVIS")));
+        OwnerSearchIndex index = new OwnerSearchIndex(ownerRepository);
+
+        assertEquals(List.of(4, 2, 3), ids(index.search("da", 10)));
+        assertEquals(List.of(4, 2, 3), ids(index.search("DAV", 10)));
+        assertEquals(List.of(1), ids(index.search("fRaNk", 10)));
+    }
+
+    @Test
+    void reindexesUpdatedOwners() {
+        given(ownerRepository.findAllSummaries()).willReturn(List.of(owner(1, "George", "Franklin")));
+        OwnerSearchIndex index = new OwnerSearchIndex(ownerRepository);
+
+        index.put(owner(1, "George", "Washington"));
+        index.put(owner(2, "Betty", "Franklin"));
+
+        assertEquals(List.of(1), ids(index.search("Wash", 10)));
+        assertEquals(List.of(2), ids(index.search("Frank", 10)));
+
+        index.put(owner(1, "George", "WASHINGTON"));
+
+        assertEquals(List.of(1), ids(index.search("wash", 10)));
+    }
+
+    private static List<Integer> ids(List<OwnerSummary> owners) {
+        return owners.stream().map(OwnerSummary::id).toList();
+    }
+
+    private static OwnerSummary owner(int id, String firstName, String lastName) {
+        return new OwnerSummary(id, firstName, lastName, "address", "city", "6085551023");
+    }
+}
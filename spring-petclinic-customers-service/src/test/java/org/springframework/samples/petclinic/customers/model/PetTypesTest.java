@@ -0,0 +1,62 @@
+package org.springframework.samples.petclinic.customers.model;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class PetTypesTest {
+
+    private final PetRepository petRepository = mock(PetRepository.class);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private PetTypes petTypes;
+
+    @BeforeEach
+    void setUp() {
+        given(petRepository.findPetTypes()).willReturn(List.of(petType(2, "cat"), petType(1, "dog")));
+        petTypes = new PetTypes(petRepository, registry);
+    }
+
+    @Test
+    void servesPetTypesFromMemory() {
+        assertEquals("dog", petTypes.findById(1).orElseThrow().getName());
+        assertEquals(List.of("cat", "dog"), petTypes.findAll().stream().map(PetType::getName).toList());
+
+        verify(petRepository, times(1)).findPetTypes();
+        verify(petRepository, never()).findPetTypeById(1);
+        assertEquals(2, registry.get("petclinic.pettypes.lookups").tag("outcome", "hit").counter().count());
+    }
+
+    @Test
+    void unknownIdFallsBackToDatabaseAndRefreshesWhenTheTypeWasAdded() {
+        PetType hamster = petType(3, "hamster");
+        given(petRepository.findPetTypeById(3)).willReturn(Optional.of(hamster));
+        given(petRepository.findPetTypes()).willReturn(List.of(petType(2, "cat"), petType(1, "dog"), hamster));
+
+        assertEquals("hamster", petTypes.findById(3).orElseThrow().getName());
+        assertEquals("hamster", petTypes.findById(3).orElseThrow().getName());
+        assertTrue(petTypes.findById(42).isEmpty());
+
+        verify(petRepository, times(1)).findPetTypeById(3);
+        assertEquals(2, registry.get("petclinic.pettypes.lookups").tag("outcome", "miss").counter().count());
+    }
+
+    private static PetType petType(int id, String name) {
+        PetType petType = new PetType();
+        petType.setId(id);
+        petType.setName(name);
+        return petType;
+    }
+}
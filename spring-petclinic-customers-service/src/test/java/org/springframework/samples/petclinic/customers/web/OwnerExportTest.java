@@ -0,0 +1,72 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OwnerExportTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void exportOwnersWithPetsOnePerLineInOneStatement() throws Exception {
+        MvcResult[] result = new MvcResult[1];
+        new SqlStatementBudget(entityManagerFactory).assertWithin(1, "GET /owners/export", () ->
+            result[0] = mvc.perform(get("/owners/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn());
+
+        List<String> lines = result[0].getResponse().getContentAsString(StandardCharsets.UTF_8).lines().toList();
+        assertThat(lines).hasSize(10);
+        JsonNode davis = objectMapper.readTree(lines.get(1));
+        assertThat(davis.get("lastName").asText()).isEqualTo("Davis");
+        assertThat(davis.get("pets")).hasSize(1);
+        assertThat(davis.at("/pets/0/name").asText()).isEqualTo("Basil");
+        assertThat(davis.at("/pets/0/type/name").asText()).isEqualTo("hamster");
+        assertThat(davis.at("/pets/0/birthDate").asText()).isEqualTo("2012-08-06");
+        assertThat(objectMapper.readTree(lines.get(9)).get("pets")).hasSize(2);
+    }
+
+    @Test
+    void gzipExportWhenAccepted() throws Exception {
+        byte[] gzipped = mvc.perform(get("/owners/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+            .andExpect(status().isOk())
+            .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+            .andReturn().getResponse().getContentAsByteArray();
+
+        try (GZIPInputStream ndjson = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(new String(ndjson.readAllBytes(), StandardCharsets.UTF_8).lines()).hasSize(10);
+        }
+    }
+}
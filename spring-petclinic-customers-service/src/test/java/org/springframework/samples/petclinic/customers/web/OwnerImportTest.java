@@ -0,0 +1,102 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class OwnerImportTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    OwnerRepository ownerRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @AfterEach
+    void deleteImportedOwners() {
+        ownerRepository.deleteAll(importedOwners());
+    }
+
+    @Test
+    void importOwnersAndReportRejectedLines() throws Exception {
+        String ndjson = String.join("\n",
+            owner("Alice", "[{\"name\":\"Milo\",\"birthDate\":\"2020-01-02\",\"typeId\":1}]"),
+            "{not json",
+            owner("", "[]"),
+            owner("Bob", "[{\"name\":\"Rex\",\"birthDate\":\"2019-05-06\",\"typeId\":42}]"),
+            "",
+            owner("Carol", "[{\"name\":\"Kiwi\",\"typeId\":5},{\"name\":\"Nemo\",\"typeId\":6}]"),
+            // Longer than the column: only the database refuses it, failing the chunk it belongs to
+            owner("Dan".repeat(11), "[]"),
+            owner("Erin", null));
+
+        mvc.perform(post("/owners/import").param("chunkSize", "2")
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .content(ndjson))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.imported").value(3))
+            .andExpect(jsonPath("$.failed").value(4))
+            .andExpect(jsonPath("$.errors[*].line", contains(2, 3, 4, 7)))
+            .andExpect(jsonPath("$.errors[1].message").value("firstName must not be blank"))
+            .andExpect(jsonPath("$.errors[2].message").value("Unknown pet type 42"));
+
+        assertThat(importedOwners())
+            .extracting(Owner::getFirstName, owner -> owner.getPets().size())
+            .containsExactlyInAnyOrder(
+                tuple("Alice", 1),
+                tuple("Carol", 2),
+                tuple("Erin", 0));
+    }
+
+    @Test
+    void batchInsertsOfAChunk() throws Exception {
+        String ndjson = IntStream.range(0, 40)
+            .mapToObj(i -> owner("Owner" + i, "[{\"name\":\"Pet" + i + "\",\"typeId\":2}]"))
+            .collect(Collectors.joining("\n"));
+
+        // One id block and one insert batch for each of the owners and the pets
+        new SqlStatementBudget(entityManagerFactory).assertWithin(4, "POST /owners/import", () ->
+            mvc.perform(post("/owners/import")
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.imported").value(40))
+                .andExpect(jsonPath("$.failed").value(0)));
+    }
+
+    private List<Owner> importedOwners() {
+        return ownerRepository.findAll().stream()
+            .filter(owner -> owner.getLastName().equals("Imported"))
+            .toList();
+    }
+
+    private static String owner(String firstName, String pets) {
+        return "{\"firstName\":\"" + firstName + "\",\"lastName\":\"Imported\",\"address\":\"1 Main St.\","
+            + "\"city\":\"Madison\",\"telephone\":\"6085550000\"" + (pets == null ? "" : ",\"pets\":" + pets) + "}";
+    }
+}
@@ -0,0 +1,81 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
+import org.springframework.samples.petclinic.customers.model.Owner;
+import org.springframework.samples.petclinic.customers.model.OwnerRepository;
+import org.springframework.samples.petclinic.customers.web.mapper.OwnerEntityMapper;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+
+import static org.mockito.BDDMockito.given;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(OwnerResource.class)
+@ActiveProfiles("test")
+class OwnerResourceTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    OwnerRepository ownerRepository;
+
+    @MockBean
+    OwnerEntityMapper ownerEntityMapper;
+
+    @MockBean
+    OwnerImporter ownerImporter;
+
+    @MockBean
+    OwnerExporter ownerExporter;
+
+    @Test
+    void shouldGetOwnersPageWithCursorToTheNextOne() throws Exception {
+        given(ownerRepository.findIdsAfter(0, Limit.of(3))).willReturn(List.of(1, 2, 3));
+        given(ownerRepository.findByIdInOrderByIdAsc(List.of(1, 2)))
+            .willReturn(List.of(owner(1, "George"), owner(2, "Betty")));
+        given(ownerRepository.findIdsAfter(2, Limit.of(3))).willReturn(List.of(3));
+        given(ownerRepository.findByIdInOrderByIdAsc(List.of(3))).willReturn(List.of(owner(3, "Eduardo")));
+
+        MvcResult firstPage = mvc.perform(get("/owners").param("size", "2").accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.owners.length()").value(2))
+            .andExpect(jsonPath("$.owners[1].firstName").value("Betty"))
+            .andExpect(jsonPath("$.nextCursor").isString())
+            .andReturn();
+        String cursor = JsonPath.read(firstPage.getResponse().getContentAsString(), "$.nextCursor");
+
+        mvc.perform(get("/owners").param("size", "2").param("cursor", cursor).accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.owners.length()").value(1))
+            .andExpect(jsonPath("$.owners[0].firstName").value("Eduardo"))
+            .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void shouldRejectInvalidCursorAndPageSize() throws Exception {
+        mvc.perform(get("/owners").param("size", "2").param("cursor", "not a cursor"))
+            .andExpect(status().isBadRequest());
+        mvc.perform(get("/owners").param("size", "1000"))
+            .andExpect(status().isBadRequest());
+    }
+
+    private static Owner owner(int id, String firstName) {
+        Owner owner = new Owner();
+        ReflectionTestUtils.setField(owner, "id", id);
+        owner.setFirstName(firstName);
+        return owner;
+    }
+}
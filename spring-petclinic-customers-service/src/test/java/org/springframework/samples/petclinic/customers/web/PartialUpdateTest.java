@@ -0,0 +1,75 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PartialUpdateTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        budget = new SqlStatementBudget(entityManagerFactory);
+    }
+
+    @Test
+    void patchOwnerInOneStatementUnlessModifiedConcurrently() throws Exception {
+        budget.assertWithin(1, "PATCH /owners/{ownerId}", () ->
+            patchJson("/owners/2", "{\"version\":0,\"telephone\":\"6085550001\"}").andExpect(status().isNoContent()));
+
+        mvc.perform(get("/owners/2"))
+            .andExpect(jsonPath("$.telephone").value("6085550001"))
+            .andExpect(jsonPath("$.lastName").value("Davis"))
+            .andExpect(jsonPath("$.version").value(1));
+        patchJson("/owners/2", "{\"version\":0,\"city\":\"Madison\"}").andExpect(status().isConflict());
+        patchJson("/owners/999", "{\"version\":0,\"city\":\"Madison\"}").andExpect(status().isNotFound());
+        patchJson("/owners/2", "{\"city\":\"Madison\"}").andExpect(status().isBadRequest());
+        patchJson("/owners/2", "{\"version\":1,\"city\":\" \"}").andExpect(status().isBadRequest());
+
+        patchJson("/owners/2", "{\"version\":1,\"telephone\":\"6085551749\"}").andExpect(status().isNoContent());
+    }
+
+    @Test
+    void patchPetInOneStatementUnlessModifiedConcurrently() throws Exception {
+        budget.assertWithin(1, "PATCH /owners/*/pets/{petId}", () ->
+            patchJson("/owners/3/pets/3", "{\"version\":0,\"name\":\"Rosie\",\"typeId\":1}").andExpect(status().isNoContent()));
+
+        mvc.perform(get("/owners/3/pets/3"))
+            .andExpect(jsonPath("$.name").value("Rosie"))
+            .andExpect(jsonPath("$.type.name").value("cat"))
+            .andExpect(jsonPath("$.birthDate").value("2011-04-17"))
+            .andExpect(jsonPath("$.version").value(1));
+        patchJson("/owners/3/pets/3", "{\"version\":0,\"name\":\"Rose\"}").andExpect(status().isConflict());
+        patchJson("/owners/3/pets/3", "{\"version\":1,\"typeId\":42}").andExpect(status().isBadRequest());
+
+        patchJson("/owners/3/pets/3", "{\"version\":1,\"name\":\"Rosy\",\"typeId\":2}").andExpect(status().isNoContent());
+    }
+
+    private ResultActions patchJson(String uri, String json) throws Exception {
+        return mvc.perform(patch(uri)
+            .contentType(MediaType.APPLICATION_JSON)
+            .content(json));
+    }
+}
@@ -0,0 +1,101 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.samples.petclinic.customers.model.Pet;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Declares how many SQL statements each read use case may execute against the sample data.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ReadStatementBudgetTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private SqlStatementBudget budget;
+
+    @BeforeEach
+    void setUp() {
+        budget = new SqlStatementBudget(entityManagerFactory);
+    }
+
+    @Test
+    void findAllOwnersWithPetsInOneStatement() throws Exception {
+        budget.assertWithin(1, "GET /owners", () -> mvc.perform(get("/owners"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(10))
+            .andExpect(jsonPath("$[9].pets[0].type.name").isString()));
+    }
+
+    @Test
+    void findOwnerWithPetsInOneStatement() throws Exception {
+        budget.assertWithin(1, "GET /owners/{ownerId}", () -> mvc.perform(get("/owners/6"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.pets.length()").value(2))
+            .andExpect(jsonPath("$.pets[0].type.name").value("cat")));
+    }
+
+    @Test
+    void findOwnersPageInTwoStatements() throws Exception {
+        budget.assertWithin(2, "GET /owners?size", () -> mvc.perform(get("/owners").param("size", "4"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.owners.length()").value(4))
+            .andExpect(jsonPath("$.owners[2].pets.length()").value(2))
+            .andExpect(jsonPath("$.nextCursor").isString()));
+    }
+
+    @Test
+    void findPetWithTypeAndOwnerInOneStatement() throws Exception {
+        budget.assertWithin(1, "GET /owners/*/pets/{petId}", () -> mvc.perform(get("/owners/6/pets/7"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.owner").value("Jean Coleman"))
+            .andExpect(jsonPath("$.type.name").value("cat")));
+    }
+
+    @Test
+    void findPetTypesFromMemory() throws Exception {
+        budget.assertWithin(0, "GET /petTypes", () -> mvc.perform(get("/petTypes"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(6)));
+    }
+
+    @Test
+    void searchOwnersByLastNamePrefixInOneStatement() throws Exception {
+        budget.assertWithin(1, "GET /owners/search", () -> mvc.perform(get("/owners/search").param("lastName", "Da"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$[0].firstName").value("Betty"))
+            .andExpect(jsonPath("$[1].firstName").value("Harold"))
+            .andExpect(jsonPath("$[0].pets").doesNotExist()));
+    }
+
+    @Test
+    void describePetWithoutLoadingItsAssociations() throws Exception {
+        entityManagerFactory.getCache().evictAll();
+        EntityManager entityManager = entityManagerFactory.createEntityManager();
+        try {
+            budget.assertWithin(1, "Pet.toString", () ->
+                assertThat(entityManager.find(Pet.class, 7).toString()).contains("Samantha"));
+        } finally {
+            entityManager.close();
+        }
+    }
+}
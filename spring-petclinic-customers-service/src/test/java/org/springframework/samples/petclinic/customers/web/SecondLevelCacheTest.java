@@ -0,0 +1,54 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles({"test", "l2cache"})
+class SecondLevelCacheTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    void findOwnerAndPetAreServedFromTheSecondLevelCache() throws Exception {
+        mvc.perform(get("/owners/3")).andExpect(status().isOk());
+        mvc.perform(get("/owners/3/pets/4")).andExpect(status().isOk());
+
+        SqlStatementBudget budget = new SqlStatementBudget(entityManagerFactory);
+        budget.assertWithin(0, "cached GET /owners/{ownerId}", () -> mvc.perform(get("/owners/3"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.pets.length()").value(2))
+            .andExpect(jsonPath("$.pets[0].type.name").value("dog")));
+        budget.assertWithin(0, "cached GET /owners/*/pets/{petId}", () -> mvc.perform(get("/owners/3/pets/4"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.owner").value("Eduardo Rodriquez")));
+    }
+
+    @Test
+    void publishesRegionStatistics() throws Exception {
+        mvc.perform(get("/owners/1")).andExpect(status().isOk());
+
+        assertThat(meterRegistry.find("hibernate.second.level.cache.puts").tag("region", "owners").functionCounter())
+            .isNotNull();
+        assertThat(meterRegistry.find("cache.evictions").tag("cache", "owners").functionCounter()).isNotNull();
+    }
+}
@@ -0,0 +1,33 @@
+package org.springframework.samples.petclinic.customers.web;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fails a test when a request executes more SQL statements than declared, e.g. because of N+1 lazy loading.
+ * Requires {@code hibernate.generate_statistics}.
+ */
+class SqlStatementBudget {
+
+    private final Statistics statistics;
+
+    SqlStatementBudget(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    void assertWithin(long maxStatements, String description, Request request) throws Exception {
+        statistics.clear();
+        request.perform();
+        assertThat(statistics.getPrepareStatementCount())
+            .as("SQL statements executed by %s", description)
+            .isLessThanOrEqualTo(maxStatements);
+    }
+
+    @FunctionalInterface
+    interface Request {
+        void perform() throws Exception;
+    }
+}
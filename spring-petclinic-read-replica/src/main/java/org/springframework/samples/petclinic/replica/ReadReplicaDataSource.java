@@ -0,0 +1,90 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Map;
+
+/**
+ * Sends the connections of read-only transactions to the replica pool while {@link ReplicaLagMonitor} deems it usable,
+ * and every other connection to the primary pool. The transactions are told apart by
+ * {@link ReadReplicaTransactionManager}.
+ */
+public class ReadReplicaDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private enum Target {
+        PRIMARY, REPLICA
+    }
+
+    private final HikariDataSource primary;
+
+    private final HikariDataSource replica;
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    private final Counter primaryConnections;
+
+    private final Counter replicaConnections;
+
+    ReadReplicaDataSource(HikariDataSource primary, HikariDataSource replica, ReplicaLagMonitor lagMonitor,
+                          MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replica = replica;
+        this.lagMonitor = lagMonitor;
+        this.primaryConnections = Counter.builder("petclinic.datasource.connections")
+            .description("Connections handed out by the read replica routing")
+            .tag("target", "primary")
+            .register(meterRegistry);
+        this.replicaConnections = Counter.builder("petclinic.datasource.connections")
+            .description("Connections handed out by the read replica routing")
+            .tag("target", "replica")
+            .register(meterRegistry);
+        setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+    }
+
+    public ReplicaLagMonitor getLagMonitor() {
+        return lagMonitor;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (determineCurrentLookupKey() == Target.REPLICA) {
+            replicaConnections.increment();
+            return replica.getConnection();
+        }
+        primaryConnections.increment();
+        return primary.getConnection();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ReadReplicaTransactionManager.isReadOnly() && lagMonitor.isUsable() ? Target.REPLICA : Target.PRIMARY;
+    }
+
+    @Override
+    public void close() {
+        lagMonitor.close();
+        replica.close();
+        primary.close();
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.replica;
+
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tells {@link ReadReplicaDataSource} whether the transaction being begun is read-only. Hibernate fetches the
+ * connection of a transaction while it begins, before Spring exposes the read-only flag through
+ * {@link TransactionSynchronizationManager}.
+ */
+public class ReadReplicaTransactionManager extends JpaTransactionManager {
+
+    private static final ThreadLocal<Boolean> beginningReadOnly = new ThreadLocal<>();
+
+    public static boolean isReadOnly() {
+        Boolean readOnly = beginningReadOnly.get();
+        return readOnly != null ? readOnly : TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        beginningReadOnly.set(definition.isReadOnly());
+        try {
+            super.doBegin(transaction, definition);
+        } finally {
+            beginningReadOnly.remove();
+        }
+    }
+}
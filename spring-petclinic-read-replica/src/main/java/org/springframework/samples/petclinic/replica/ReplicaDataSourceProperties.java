@@ -0,0 +1,50 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Connection to the read replica used by {@link ReadReplicaConfig}. The pool can be tuned under
+ * {@code petclinic.datasource.replica.hikari} like the primary one under {@code spring.datasource.hikari}.
+ *
+ * @param url            JDBC URL of the replica, routing is disabled without it
+ * @param maxLag         replication lag beyond which reads go back to the primary
+ * @param checkInterval  delay between two replica lag checks
+ * @param lagQuery       query answering the replication lag in seconds, e.g. against a pt-heartbeat table; without
+ *                       it the replica is only checked for liveness
+ */
+@ConfigurationProperties("petclinic.datasource.replica")
+public record ReplicaDataSourceProperties(
+
+    String url,
+
+    String username,
+
+    String password,
+
+    @DefaultValue("10s")
+    Duration maxLag,
+
+    @DefaultValue("5s")
+    Duration checkInterval,
+
+    String lagQuery
+) {
+}
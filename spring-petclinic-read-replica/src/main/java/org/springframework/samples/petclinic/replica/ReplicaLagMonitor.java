@@ -0,0 +1,116 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.replica;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Periodically checks that the replica is reachable and close enough to the primary to serve reads.
+ * <p>
+ * The replica is considered unusable until the first successful check, and as soon as a check fails, returns no
+ * lag (replication stopped) or a lag above the maximum.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private static final int VALIDATION_TIMEOUT_SECONDS = 1;
+
+    private final DataSource replica;
+
+    private final String lagQuery;
+
+    private final Duration maxLag;
+
+    private final ScheduledExecutorService scheduler;
+
+    private volatile boolean usable;
+
+    private volatile double lagSeconds = Double.NaN;
+
+    ReplicaLagMonitor(DataSource replica, ReplicaDataSourceProperties properties, MeterRegistry meterRegistry) {
+        this.replica = replica;
+        this.lagQuery = properties.lagQuery();
+        this.maxLag = properties.maxLag();
+        Gauge.builder("petclinic.datasource.replica.lag", this, monitor -> monitor.lagSeconds)
+            .description("Replication lag of the read replica as of the last check")
+            .baseUnit("seconds")
+            .register(meterRegistry);
+        Gauge.builder("petclinic.datasource.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+            .description("Whether read-only transactions are sent to the read replica")
+            .register(meterRegistry);
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long interval = properties.checkInterval().toMillis();
+        scheduler.scheduleWithFixedDelay(this::check, 0, interval, TimeUnit.MILLISECONDS);
+    }
+
+    public boolean isUsable() {
+        return usable;
+    }
+
+    public void check() {
+        boolean wasUsable = usable;
+        try (Connection connection = replica.getConnection()) {
+            lagSeconds = lagQuery == null ? 0 : queryLag(connection);
+            usable = (lagQuery != null || connection.isValid(VALIDATION_TIMEOUT_SECONDS))
+                && lagSeconds <= maxLag.toMillis() / 1000.0;
+        } catch (SQLException | RuntimeException ex) {
+            lagSeconds = Double.NaN;
+            usable = false;
+            if (wasUsable) {
+                log.warn("Read replica check failed, sending reads to the primary", ex);
+            }
+            return;
+        }
+        if (wasUsable && !usable) {
+            log.warn("Read replica lags by {}s, more than {}: sending reads to the primary", lagSeconds, maxLag);
+        } else if (!wasUsable && usable) {
+            log.info("Read replica is usable, sending reads to it");
+        }
+    }
+
+    private double queryLag(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet result = statement.executeQuery(lagQuery)) {
+            if (!result.next()) {
+                return Double.NaN;
+            }
+            double lag = result.getDouble(1);
+            return result.wasNull() ? Double.NaN : lag;
+        }
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdownNow();
+    }
+}
@@ -0,0 +1,155 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.assets;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Build step preparing the {@code static/} web assets of the API Gateway for long-lived browser caching, run by the
+ * {@code exec-maven-plugin} once the gateway classes are processed. Living in its own module, it is neither packaged
+ * with the gateway nor skipped with its tests.
+ * <ul>
+ *     <li>every asset gets a copy whose name contains a hash of its content, e.g. {@code app.3f2a9c0d1e.js}</li>
+ *     <li>text assets get a gzip precompressed {@code .gz} variant</li>
+ *     <li>the original to fingerprinted path mapping is written to the manifest file</li>
+ * </ul>
+ * The step can be re-run on the same directory: the files generated by the previous run are deleted first.
+ */
+public final class StaticAssetsPackager {
+
+    static final Set<String> COMPRESSIBLE_EXTENSIONS = Set.of("css", "js", "html", "json", "svg", "txt", "map");
+
+    private StaticAssetsPackager() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Usage: StaticAssetsPackager <static directory> <manifest file>");
+        }
+        pack(Path.of(args[0]), Path.of(args[1]));
+    }
+
+    public static Map<String, String> pack(Path root, Path manifestFile) throws IOException {
+        if (!Files.isDirectory(root)) {
+            throw new IOException("No static assets directory " + root);
+        }
+        deletePreviousOutput(root, manifestFile);
+
+        List<Path> assets;
+        try (Stream<Path> files = Files.walk(root)) {
+            assets = files.filter(Files::isRegularFile)
+                .filter(file -> !file.toString().endsWith(".gz"))
+                .sorted()
+                .toList();
+        }
+        Map<String, String> manifest = new TreeMap<>();
+        for (Path asset : assets) {
+            String path = root.relativize(asset).toString().replace('\\', '/');
+            byte[] content = Files.readAllBytes(asset);
+            boolean compressible = COMPRESSIBLE_EXTENSIONS.contains(extensionOf(path));
+            if (compressible) {
+                writeGzip(asset.resolveSibling(asset.getFileName() + ".gz"), content);
+            }
+            // index.html is the entry point, it is served under its own name and revalidated on each page load
+            if (path.equals("index.html")) {
+                continue;
+            }
+            String fingerprinted = fingerprint(path, content);
+            Path fingerprintedAsset = root.resolve(fingerprinted);
+            Files.write(fingerprintedAsset, content);
+            if (compressible) {
+                writeGzip(fingerprintedAsset.resolveSibling(fingerprintedAsset.getFileName() + ".gz"), content);
+            }
+            manifest.put(path, fingerprinted);
+        }
+
+        StringBuilder lines = new StringBuilder();
+        manifest.forEach((path, fingerprinted) -> lines.append(path).append('=').append(fingerprinted).append('\n'));
+        Files.writeString(manifestFile, lines, StandardCharsets.ISO_8859_1);
+        return manifest;
+    }
+
+    static String fingerprint(String path, byte[] content) {
+        String hash = HexFormat.of().formatHex(sha256(content), 0, 5);
+        int slash = path.lastIndexOf('/');
+        int dot = path.lastIndexOf('.');
+        if (dot <= slash + 1) {
+            return path + "." + hash;
+        }
+        return path.substring(0, dot) + "." + hash + path.substring(dot);
+    }
+
+    private static void deletePreviousOutput(Path root, Path manifestFile) throws IOException {
+        if (!Files.exists(manifestFile)) {
+            return;
+        }
+        Properties previous = new Properties();
+        try (InputStream in = Files.newInputStream(manifestFile)) {
+            previous.load(in);
+        }
+        for (String fingerprinted : previous.stringPropertyNames().stream().map(previous::getProperty).toList()) {
+            Files.deleteIfExists(root.resolve(fingerprinted));
+            Files.deleteIfExists(root.resolve(fingerprinted + ".gz"));
+        }
+    }
+
+    private static void writeGzip(Path target, byte[] content) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(content.length / 2);
+        try (OutputStream out = new GZIPOutputStream(compressed) {
+            {
+                def.setLevel(Deflater.BEST_COMPRESSION);
+            }
+        }) {
+            out.write(content);
+        }
+        // Tiny files can grow when compressed, only keep the variant when it is worth serving
+        if (compressed.size() < content.length) {
+            Files.write(target, compressed.toByteArray());
+        } else {
+            Files.deleteIfExists(target);
+        }
+    }
+
+    private static String extensionOf(String path) {
+        int dot = path.lastIndexOf('.');
+        return dot < 0 ? "" : path.substring(dot + 1);
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 is not available", ex);
+        }
+    }
+}
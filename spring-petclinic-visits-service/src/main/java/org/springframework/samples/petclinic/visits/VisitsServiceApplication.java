@@ -17,13 +17,17 @@ package org.springframework.samples.petclinic.visits;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.samples.petclinic.visits.model.VisitIngestProperties;
+import org.springframework.samples.petclinic.visits.model.VisitsByPetIdsProperties;
 
 /**
  * @author Maciej Szarlinski
  */
 @EnableDiscoveryClient
 @SpringBootApplication
+@EnableConfigurationProperties({VisitsByPetIdsProperties.class, VisitIngestProperties.class})
 public class VisitsServiceApplication {
 
     public static void main(String[] args) {
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Write-behind ingestion of the visits created with {@code Prefer: respond-async}, see {@link VisitIngester}.
+ *
+ * @param writeBehind    whether visits can be created asynchronously
+ * @param capacity       visits accepted but not yet written to the database beyond which creations are refused
+ * @param batchSize      visits written by each JDBC batch
+ * @param flushInterval  longest time a visit waits for its batch to fill up
+ * @param offerTimeout   time a creation waits for room when {@code capacity} is reached before being refused
+ * @param journal        file holding the visits not yet written, replayed at startup: it must be on a persistent
+ *                       volume that is not shared with another instance
+ */
+@ConfigurationProperties("visits.ingest")
+public record VisitIngestProperties(
+
+    boolean writeBehind,
+
+    @DefaultValue("10000")
+    int capacity,
+
+    @DefaultValue("500")
+    int batchSize,
+
+    @DefaultValue("200ms")
+    Duration flushInterval,
+
+    @DefaultValue("50ms")
+    Duration offerTimeout,
+
+    @DefaultValue("visits-ingest.journal")
+    Path journal
+) {
+}
@@ -0,0 +1,271 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.visits.model.VisitJournal.JournaledVisit;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write-behind ingestion of visits, for clients posting them in bursts. Enabled by
+ * {@code visits.ingest.write-behind=true}.
+ * <p>
+ * An accepted visit is appended to the {@link VisitJournal journal} and queued. A single thread writes the queued
+ * visits with JDBC batches of {@link VisitIngestProperties#batchSize()}, as soon as a batch is full or its first visit
+ * has waited {@link VisitIngestProperties#flushInterval()}. Visits are refused once
+ * {@link VisitIngestProperties#capacity()} of them are waiting.
+ * <p>
+ * While the database fails, or the batch cannot be written for any other reason, the batch is retried and the queue
+ * fills up. A visit the database rejects is dropped and logged. The visits left in the journal by a crash are queued
+ * again at startup. A crash between writing a batch and recording it in the journal writes that batch again.
+ */
+@Component
+@ConditionalOnProperty(prefix = "visits.ingest", name = "write-behind", havingValue = "true")
+public class VisitIngester implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VisitIngester.class);
+
+    private static final String INSERT = "INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, ?)";
+
+    private static final long RETRY_DELAY_MILLIS = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final VisitStatistics visitStatistics;
+
+    private final VisitJournal journal;
+
+    private final BlockingQueue<JournaledVisit> queue = new LinkedBlockingQueue<>();
+
+    private final Semaphore room;
+
+    private final int capacity;
+
+    private final int batchSize;
+
+    private final long flushIntervalNanos;
+
+    private final long offerTimeoutNanos;
+
+    private final Thread flusher;
+
+    private final Counter accepted;
+
+    private final Counter refused;
+
+    private final Counter written;
+
+    private final Counter dropped;
+
+    private volatile boolean closed;
+
+    public VisitIngester(VisitIngestProperties properties, JdbcTemplate jdbcTemplate,
+                         TransactionTemplate transactionTemplate, VisitStatistics visitStatistics,
+                         ObjectMapper objectMapper, MeterRegistry meterRegistry) throws IOException {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.visitStatistics = visitStatistics;
+        this.capacity = properties.capacity();
+        this.batchSize = properties.batchSize();
+        this.flushIntervalNanos = properties.flushInterval().toNanos();
+        this.offerTimeoutNanos = properties.offerTimeout().toNanos();
+        this.accepted = ingestCounter("accepted", meterRegistry);
+        this.refused = ingestCounter("refused", meterRegistry);
+        this.written = ingestCounter("written", meterRegistry);
+        this.dropped = ingestCounter("dropped", meterRegistry);
+
+        this.journal = new VisitJournal(properties.journal(), objectMapper);
+        // Written by the flusher like any accepted visit, so that a database down at startup is retried
+        List<JournaledVisit> recovered = journal.recovered();
+        this.room = new Semaphore(capacity - recovered.size());
+        queue.addAll(recovered);
+        Gauge.builder("petclinic.visit.ingest.pending", room, semaphore -> capacity - semaphore.availablePermits())
+            .description("Visits accepted and not written to the database yet")
+            .register(meterRegistry);
+
+        this.flusher = new Thread(this::flushQueue, "visit-ingester");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private static Counter ingestCounter(String outcome, MeterRegistry meterRegistry) {
+        return Counter.builder("petclinic.visit.ingest")
+            .description("Visits created asynchronously")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    /**
+     * Accept a visit to write it later, waiting at most {@link VisitIngestProperties#offerTimeout()} for room.
+     *
+     * @return {@code false} if the visit was refused and must be sent again later
+     * @throws UncheckedIOException if the visit could not be journaled
+     */
+    public boolean offer(Visit visit) {
+        try {
+            if (closed || !room.tryAcquire(offerTimeoutNanos, TimeUnit.NANOSECONDS)) {
+                refused.increment();
+                return false;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            refused.increment();
+            return false;
+        }
+        try {
+            journal.sync(enqueue(visit).seq());
+        } catch (IOException ex) {
+            room.release();
+            throw new UncheckedIOException("Failed to journal visit", ex);
+        }
+        accepted.increment();
+        return true;
+    }
+
+    // Queued in sequence order, so that each checkpoint covers every visit before it. A visit failing to be forced to
+    // disk is refused but may still be written, like a visit whose acknowledgement is lost.
+    private synchronized JournaledVisit enqueue(Visit visit) throws IOException {
+        JournaledVisit journaled = journal.append(visit);
+        queue.add(journaled);
+        return journaled;
+    }
+
+    private void flushQueue() {
+        List<JournaledVisit> batch = new ArrayList<>(batchSize);
+        try {
+            while (!closed || !queue.isEmpty()) {
+                JournaledVisit first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < batchSize) {
+                    if (queue.drainTo(batch, batchSize - batch.size()) > 0) {
+                        continue;
+                    }
+                    JournaledVisit next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                if (!flush(batch)) {
+                    return;
+                }
+                batch.clear();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return {@code false} if the ingester was closed before the batch could be written, leaving it in the journal
+     */
+    private boolean flush(List<JournaledVisit> batch) throws InterruptedException {
+        while (true) {
+            try {
+                writeAll(batch);
+                journal.checkpoint(batch.get(batch.size() - 1).seq());
+                room.release(batch.size());
+                return true;
+            } catch (IOException | RuntimeException ex) {
+                if (closed) {
+                    log.warn("Leaving {} visits in the journal, to be written at next startup", batch.size(), ex);
+                    return false;
+                }
+                if (ex instanceof IOException || ex instanceof DataAccessException) {
+                    log.warn("Failed to write {} visits, retrying", batch.size(), ex);
+                } else {
+                    log.error("Unexpected failure writing {} visits, retrying", batch.size(), ex);
+                }
+                Thread.sleep(RETRY_DELAY_MILLIS);
+            }
+        }
+    }
+
+    private void writeAll(List<JournaledVisit> batch) {
+        try {
+            write(batch);
+            written.increment(batch.size());
+        } catch (DataIntegrityViolationException ex) {
+            // Find the visits the database rejects, the others are written one by one
+            for (JournaledVisit visit : batch) {
+                try {
+                    write(List.of(visit));
+                    written.increment();
+                } catch (DataIntegrityViolationException rejected) {
+                    log.error("Dropping visit {} rejected by the database", visit, rejected);
+                    dropped.increment();
+                }
+            }
+        }
+    }
+
+    private void write(List<JournaledVisit> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(INSERT, batch, batch.size(), (statement, visit) -> {
+                statement.setInt(1, visit.petId());
+                if (visit.date() == null) {
+                    statement.setNull(2, Types.TIMESTAMP);
+                } else {
+                    statement.setTimestamp(2, new Timestamp(visit.date().getTime()));
+                }
+                statement.setString(3, visit.description());
+            });
+            visitStatistics.count(batch.stream()
+                .map(visit -> Visit.VisitBuilder.aVisit().petId(visit.petId()).date(visit.date()).build())
+                .toList());
+        });
+    }
+
+    /**
+     * Refuse new visits and write the queued ones before closing the journal.
+     */
+    @Override
+    public void close() throws IOException, InterruptedException {
+        closed = true;
+        flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + RETRY_DELAY_MILLIS * 5);
+        if (flusher.isAlive()) {
+            flusher.interrupt();
+        }
+        journal.close();
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Append-only file of the visits accepted by {@link VisitIngester}, each forced to disk before it is acknowledged.
+ * Appending a visit only writes it, {@link #sync(long)} then forces every line written so far, so that concurrent
+ * visits share a single force.
+ * <p>
+ * A {@code V} line holds a visit and its sequence number, a {@code C} line the sequence number up to which visits have
+ * been written to the database. The file is emptied whenever every visit it holds has been written.
+ */
+class VisitJournal implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(VisitJournal.class);
+
+    private static final String VISIT = "V ";
+
+    private static final String CHECKPOINT = "C ";
+
+    private final ObjectMapper objectMapper;
+
+    private final FileChannel channel;
+
+    private final List<JournaledVisit> pending = new ArrayList<>();
+
+    private final Object syncLock = new Object();
+
+    private long lastSeq;
+
+    private volatile long syncedSeq;
+
+    VisitJournal(Path path, ObjectMapper objectMapper) throws IOException {
+        this.objectMapper = objectMapper;
+        if (Files.exists(path)) {
+            recover(path);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.APPEND);
+        if (pending.isEmpty()) {
+            channel.truncate(0);
+        }
+        this.syncedSeq = lastSeq;
+    }
+
+    private void recover(Path path) throws IOException {
+        long checkpoint = 0;
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                try {
+                    if (line.startsWith(CHECKPOINT)) {
+                        checkpoint = Long.parseLong(line.substring(CHECKPOINT.length()));
+                    } else if (line.startsWith(VISIT)) {
+                        JournaledVisit visit = objectMapper.readValue(line.substring(VISIT.length()), JournaledVisit.class);
+                        pending.add(visit);
+                        lastSeq = Math.max(lastSeq, visit.seq());
+                    }
+                } catch (JsonProcessingException | NumberFormatException ex) {
+                    // Only the line being written when the process died can be incomplete, and it was not acknowledged
+                    log.warn("Skipping incomplete line of the visit journal {}", path);
+                }
+            }
+        }
+        long flushed = checkpoint;
+        pending.removeIf(visit -> visit.seq() <= flushed);
+        if (!pending.isEmpty()) {
+            log.info("Recovered {} visits not written to the database from {}", pending.size(), path);
+        }
+    }
+
+    /**
+     * @return the visits accepted before the last restart and not written to the database, in sequence order
+     */
+    List<JournaledVisit> recovered() {
+        return List.copyOf(pending);
+    }
+
+    /**
+     * Write a visit to the journal, without forcing it to disk.
+     */
+    synchronized JournaledVisit append(Visit visit) throws IOException {
+        JournaledVisit journaled = new JournaledVisit(lastSeq + 1, visit.getPetId(), visit.getDate(), visit.getDescription());
+        write(VISIT + objectMapper.writeValueAsString(journaled));
+        lastSeq = journaled.seq();
+        return journaled;
+    }
+
+    /**
+     * Force the visits up to {@code seq} to disk, unless a concurrent call already did.
+     */
+    void sync(long seq) throws IOException {
+        if (syncedSeq >= seq) {
+            return;
+        }
+        synchronized (syncLock) {
+            if (syncedSeq >= seq) {
+                return;
+            }
+            long written;
+            synchronized (this) {
+                written = lastSeq;
+            }
+            channel.force(false);
+            syncedSeq = written;
+        }
+    }
+
+    /**
+     * Record that the visits up to {@code seq} are written to the database.
+     */
+    synchronized void checkpoint(long seq) throws IOException {
+        if (seq == lastSeq) {
+            channel.truncate(0);
+            channel.force(true);
+        } else {
+            write(CHECKPOINT + seq);
+            channel.force(false);
+        }
+    }
+
+    private void write(String line) throws IOException {
+        ByteBuffer bytes = ByteBuffer.wrap((line + '\n').getBytes(StandardCharsets.UTF_8));
+        while (bytes.hasRemaining()) {
+            channel.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    record JournaledVisit(
+
+        long seq,
+
+        int petId,
+
+        @JsonFormat(pattern = "yyyy-MM-dd")
+        Date date,
+
+        String description
+    ) {
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import org.springframework.lang.Nullable;
+
+import java.sql.Date;
+import java.time.LocalDate;
+
+/**
+ * Days between {@code from} and {@code to}, both included, that visits are read from. Visits without a date are only
+ * read from the unbounded period.
+ */
+public record VisitPeriod(LocalDate from, LocalDate to) {
+
+    // Range of the MySQL DATE type
+    private static final LocalDate EARLIEST = LocalDate.of(1000, 1, 1);
+
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 30);
+
+    public static final VisitPeriod ALL = new VisitPeriod(EARLIEST, LATEST);
+
+    /**
+     * @param from first day of the period, unbounded if {@code null}
+     * @param to   last day of the period, unbounded if {@code null}
+     */
+    public static VisitPeriod between(@Nullable LocalDate from, @Nullable LocalDate to) {
+        return new VisitPeriod(from == null ? EARLIEST : from, to == null ? LATEST : to);
+    }
+
+    /**
+     * @return whether visits without a date are read too, which is only the case of the unbounded period
+     */
+    public boolean includesUndated() {
+        return equals(ALL);
+    }
+
+    public Date start() {
+        return Date.valueOf(from);
+    }
+
+    public Date endExclusive() {
+        return Date.valueOf(to.plusDays(1));
+    }
+}
@@ -16,9 +16,13 @@
 package org.springframework.samples.petclinic.visits.model;
 
 import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 /**
  * Repository class for <code>Visit</code> domain objects All method names are compliant with Spring Data naming conventions so this interface can easily be extended for Spring
@@ -32,7 +36,41 @@ import org.springframework.data.jpa.repository.JpaRepository;
  */
 public interface VisitRepository extends JpaRepository<Visit, Integer> {
 
-    List<Visit> findByPetId(int petId);
+    // Visits without a date belong to no bounded period
+    String IN_PERIOD = "(visit.date >= :start AND visit.date < :end OR :undated = true AND visit.date IS NULL)";
 
-    List<Visit> findByPetIdIn(Collection<Integer> petIds);
+    /**
+     * Retrieve the {@link VisitSummary visit summaries} of a pet between {@code start} included and {@code end}
+     * excluded, or without a date too when {@code undated}, newest first: a backward range scan of the
+     * {@code (pet_id, visit_date)} index that stops after {@code limit} visits.
+     */
+    @Query(VisitSummary.SELECT + " FROM Visit visit WHERE visit.petId = :petId AND " + IN_PERIOD
+        + " ORDER BY visit.date DESC NULLS LAST, visit.id DESC")
+    List<VisitSummary> findSummariesByPetId(@Param("petId") int petId, @Param("start") Date start,
+                                            @Param("end") Date end, @Param("undated") boolean undated, Limit limit);
+
+    /**
+     * Retrieve the {@link VisitSummary visit summaries} of several pets between {@code start} included and
+     * {@code end} excluded, or without a date too when {@code undated}, grouped by pet and newest first within each
+     * pet: one range scan of the {@code (pet_id, visit_date)} index for each pet.
+     */
+    @Query(VisitSummary.SELECT + " FROM Visit visit WHERE visit.petId IN :petIds AND " + IN_PERIOD
+        + " ORDER BY visit.petId, visit.date DESC NULLS LAST, visit.id DESC")
+    List<VisitSummary> findSummariesByPetIdIn(@Param("petIds") Collection<Integer> petIds, @Param("start") Date start,
+                                              @Param("end") Date end, @Param("undated") boolean undated);
+
+    /**
+     * Like {@link #findSummariesByPetIdIn}, keeping the {@code limitPerPet} newest visits of each pet: a visit of each
+     * pet drives a lateral join running a backward range scan of the {@code (pet_id, visit_date)} index that stops
+     * after {@code limitPerPet} visits.
+     */
+    @Query(VisitSummary.SELECT + " FROM Visit pet JOIN LATERAL (SELECT visit.id AS id, visit.petId AS petId,"
+        + " visit.date AS date, visit.description AS description FROM Visit visit WHERE visit.petId = pet.petId AND "
+        + IN_PERIOD + " ORDER BY visit.date DESC NULLS LAST, visit.id DESC LIMIT :limitPerPet) visit"
+        + " WHERE pet.id IN (SELECT MIN(first.id) FROM Visit first WHERE first.petId IN :petIds GROUP BY first.petId)"
+        + " ORDER BY visit.petId, visit.date DESC NULLS LAST, visit.id DESC")
+    List<VisitSummary> findRecentSummariesByPetIdIn(@Param("petIds") Collection<Integer> petIds,
+                                                    @Param("start") Date start, @Param("end") Date end,
+                                                    @Param("undated") boolean undated,
+                                                    @Param("limitPerPet") int limitPerPet);
 }
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Visit counts of each pet by day and by month, kept in the {@code visit_counts} table as visits are created so that
+ * statistics are read from a row per period instead of from the visits themselves.
+ */
+@Component
+public class VisitStatistics {
+
+    public enum Granularity {
+
+        DAY, MONTH;
+
+        LocalDate start(LocalDate date) {
+            return this == DAY ? date : date.withDayOfMonth(1);
+        }
+
+        String column() {
+            return name().toLowerCase();
+        }
+    }
+
+    // Single statements, as an update followed by an insert of a missing row deadlocks on the gap locks MySQL takes
+    // under REPEATABLE READ when two transactions count visits of the same new period
+    private static final String MYSQL_INCREMENT = "INSERT INTO visit_counts (pet_id, granularity, period_start, visits)"
+        + " VALUES (:petId, :granularity, :start, :visits)"
+        + " ON DUPLICATE KEY UPDATE visits = visits + VALUES(visits)";
+
+    private static final String HSQLDB_INCREMENT = "MERGE INTO visit_counts USING (VALUES (CAST(:petId AS INTEGER),"
+        + " CAST(:granularity AS VARCHAR(5)), CAST(:start AS DATE), CAST(:visits AS INTEGER)))"
+        + " AS increment (pet_id, granularity, period_start, visits)"
+        + " ON visit_counts.pet_id = increment.pet_id AND visit_counts.granularity = increment.granularity"
+        + " AND visit_counts.period_start = increment.period_start"
+        + " WHEN MATCHED THEN UPDATE SET visits = visit_counts.visits + increment.visits"
+        + " WHEN NOT MATCHED THEN INSERT VALUES increment.pet_id, increment.granularity, increment.period_start,"
+        + " increment.visits";
+
+    private static final Comparator<Bucket> LOCK_ORDER = Comparator.comparingInt(Bucket::petId)
+        .thenComparing(Bucket::granularity)
+        .thenComparing(Bucket::start);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final int chunkSize;
+
+    private volatile String incrementStatement;
+
+    public VisitStatistics(NamedParameterJdbcTemplate jdbcTemplate, VisitsByPetIdsProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = properties.chunkSize();
+    }
+
+    /**
+     * Count newly created visits, within the transaction creating them. Visits without a date are not counted.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void count(Collection<Visit> visits) {
+        Map<Bucket, Integer> increments = new LinkedHashMap<>();
+        for (Visit visit : visits) {
+            if (visit.getDate() == null) {
+                continue;
+            }
+            LocalDate date = new Date(visit.getDate().getTime()).toLocalDate();
+            for (Granularity granularity : Granularity.values()) {
+                increments.merge(new Bucket(visit.getPetId(), granularity, granularity.start(date)), 1, Integer::sum);
+            }
+        }
+        // Rows locked in the same order by every transaction, so that concurrent ones wait for each other
+        SqlParameterSource[] parameters = increments.entrySet().stream()
+            .sorted(Map.Entry.comparingByKey(LOCK_ORDER))
+            .map(entry -> new MapSqlParameterSource()
+                .addValue("petId", entry.getKey().petId())
+                .addValue("granularity", entry.getKey().granularity().column())
+                .addValue("start", Date.valueOf(entry.getKey().start()))
+                .addValue("visits", entry.getValue()))
+            .toArray(SqlParameterSource[]::new);
+        if (parameters.length > 0) {
+            jdbcTemplate.batchUpdate(incrementStatement(), parameters);
+        }
+    }
+
+    private String incrementStatement() {
+        String statement = incrementStatement;
+        if (statement == null) {
+            String product = jdbcTemplate.getJdbcTemplate().execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+            statement = DatabaseDriver.fromProductName(product) == DatabaseDriver.HSQLDB ? HSQLDB_INCREMENT : MYSQL_INCREMENT;
+            incrementStatement = statement;
+        }
+        return statement;
+    }
+
+    /**
+     * @return the visits of each pet by period during {@code period}, ordered by pet and period
+     */
+    public List<VisitCount> countByPet(Collection<Integer> petIds, Granularity granularity, VisitPeriod period) {
+        // Bound like the lookups of VisitsByPetIdsLoader, chunks of ordered ids keep the rows ordered by pet
+        List<VisitCount> counts = new ArrayList<>();
+        for (List<Integer> chunk : VisitsByPetIdsLoader.chunk(new TreeSet<>(petIds), chunkSize)) {
+            counts.addAll(jdbcTemplate.query("SELECT pet_id, period_start, visits FROM visit_counts"
+                    + " WHERE pet_id IN (:petIds) AND granularity = :granularity AND period_start BETWEEN :from AND :to"
+                    + " ORDER BY pet_id, period_start",
+                parameters(granularity, period).addValue("petIds", chunk),
+                (row, rowNum) -> new VisitCount(row.getInt(1), row.getDate(2).toLocalDate(), row.getLong(3))));
+        }
+        return counts;
+    }
+
+    /**
+     * @return the visits of all pets by period during {@code period}, ordered by period
+     */
+    public List<VisitCount> countAll(Granularity granularity, VisitPeriod period) {
+        return jdbcTemplate.query("SELECT period_start, SUM(visits) FROM visit_counts"
+                + " WHERE granularity = :granularity AND period_start BETWEEN :from AND :to"
+                + " GROUP BY period_start ORDER BY period_start",
+            parameters(granularity, period),
+            (row, rowNum) -> new VisitCount(null, row.getDate(1).toLocalDate(), row.getLong(2)));
+    }
+
+    private static MapSqlParameterSource parameters(Granularity granularity, VisitPeriod period) {
+        return new MapSqlParameterSource()
+            .addValue("granularity", granularity.column())
+            .addValue("from", Date.valueOf(granularity.start(period.from())))
+            .addValue("to", Date.valueOf(period.to()));
+    }
+
+    private record Bucket(int petId, Granularity granularity, LocalDate start) {
+    }
+}
@@ -0,0 +1,46 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+import java.util.Date;
+
+/**
+ * A {@link Visit} in a list, with at most the first {@value #DESCRIPTION_LENGTH} characters of its description.
+ *
+ * @param descriptionTruncated whether the description is longer, the full one being read with its visit
+ */
+public record VisitSummary(
+
+    Integer id,
+
+    int petId,
+
+    @JsonFormat(pattern = "yyyy-MM-dd")
+    Date date,
+
+    String description,
+
+    boolean descriptionTruncated
+) {
+
+    public static final int DESCRIPTION_LENGTH = 120;
+
+    static final String SELECT = "SELECT new org.springframework.samples.petclinic.visits.model.VisitSummary("
+        + "visit.id, visit.petId, visit.date, SUBSTRING(visit.description, 1, " + DESCRIPTION_LENGTH + "),"
+        + " CASE WHEN LENGTH(visit.description) > " + DESCRIPTION_LENGTH + " THEN true ELSE false END)";
+}
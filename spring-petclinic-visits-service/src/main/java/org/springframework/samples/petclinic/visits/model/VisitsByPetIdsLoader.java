@@ -0,0 +1,132 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Looks up the {@link VisitSummary visit summaries} of many pets at once without binding all their ids to a single {@code IN} list, which would
+ * give each list length its own statement and grow past what the database plans efficiently.
+ * <p>
+ * The distinct ids are split into chunks of {@link VisitsByPetIdsProperties#chunkSize()} ids, the last one padded by
+ * repeating its last id, and the chunks are queried concurrently by a bounded pool of
+ * {@link VisitsByPetIdsProperties#parallelism()} threads, each in its own read-only transaction. When the pool is
+ * saturated the calling thread queries the chunk itself. Visits are returned in the order of the chunks, grouped by
+ * pet and newest first within each pet.
+ */
+@Component
+public class VisitsByPetIdsLoader implements AutoCloseable {
+
+    private final VisitRepository visitRepository;
+
+    private final int chunkSize;
+
+    private final ThreadPoolExecutor executor;
+
+    public VisitsByPetIdsLoader(VisitRepository visitRepository, VisitsByPetIdsProperties properties) {
+        this.visitRepository = visitRepository;
+        this.chunkSize = properties.chunkSize();
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(properties.parallelism(), properties.parallelism(),
+            0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(properties.parallelism() * 4),
+            runnable -> {
+                Thread thread = new Thread(runnable, "visits-by-pet-ids-" + threads.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.CallerRunsPolicy());
+    }
+
+    public List<VisitSummary> findByPetIds(Collection<Integer> petIds) {
+        return findByPetIds(petIds, VisitPeriod.ALL, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Retrieve the visits of the pets during {@code period}, at most the {@code limitPerPet} most recent of each pet.
+     */
+    public List<VisitSummary> findByPetIds(Collection<Integer> petIds, VisitPeriod period, int limitPerPet) {
+        List<List<Integer>> chunks = chunk(petIds);
+        if (chunks.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (chunks.size() == 1) {
+            return find(chunks.get(0), period, limitPerPet);
+        }
+        List<CompletableFuture<List<VisitSummary>>> results = chunks.stream()
+            .map(chunk -> CompletableFuture.supplyAsync(() -> find(chunk, period, limitPerPet), executor))
+            .toList();
+        List<VisitSummary> visits = new ArrayList<>();
+        try {
+            results.forEach(result -> visits.addAll(result.join()));
+        } catch (CompletionException ex) {
+            results.forEach(result -> result.cancel(false));
+            if (ex.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw ex;
+        }
+        return visits;
+    }
+
+    private List<VisitSummary> find(List<Integer> petIds, VisitPeriod period, int limitPerPet) {
+        if (limitPerPet == Integer.MAX_VALUE) {
+            return visitRepository.findSummariesByPetIdIn(petIds, period.start(), period.endExclusive(),
+                period.includesUndated());
+        }
+        return visitRepository.findRecentSummariesByPetIdIn(petIds, period.start(), period.endExclusive(),
+            period.includesUndated(), limitPerPet);
+    }
+
+    List<List<Integer>> chunk(Collection<Integer> petIds) {
+        return chunk(new LinkedHashSet<>(petIds), chunkSize);
+    }
+
+    /**
+     * Split distinct ids into lists of {@code chunkSize} ids, the last one padded by repeating its last id.
+     */
+    static List<List<Integer>> chunk(Set<Integer> petIds, int chunkSize) {
+        List<Integer> distinctIds = new ArrayList<>(petIds);
+        List<List<Integer>> chunks = new ArrayList<>((distinctIds.size() + chunkSize - 1) / chunkSize);
+        for (int from = 0; from < distinctIds.size(); from += chunkSize) {
+            List<Integer> chunk = new ArrayList<>(chunkSize);
+            chunk.addAll(distinctIds.subList(from, Math.min(from + chunkSize, distinctIds.size())));
+            Integer last = chunk.get(chunk.size() - 1);
+            while (chunk.size() < chunkSize) {
+                chunk.add(last);
+            }
+            chunks.add(chunk);
+        }
+        return chunks;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
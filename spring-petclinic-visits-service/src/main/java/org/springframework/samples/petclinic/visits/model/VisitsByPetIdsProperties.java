@@ -0,0 +1,43 @@
+/*
+ * Copyright 2002-2021 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.springframework.samples.petclinic.visits.model;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+/**
+ * Splitting of the pet ids looked up by {@link VisitsByPetIdsLoader} and {@link VisitStatistics}.
+ *
+ * @param chunkSize    number of pet ids bound to each {@code IN} list, which is always padded to this size so that
+ *                     every chunk reuses the same statement
+ * @param parallelism  number of chunks queried concurrently, each holding a connection of the pool
+ */
+@ConfigurationProperties("visits.by-pet-ids")
+public record VisitsByPetIdsProperties(
+
+    @DefaultValue("100")
+    int chunkSize,
+
+    @DefaultValue("4")
+    int parallelism
+) {
+
+    public VisitsByPetIdsProperties {
+        if (chunkSize < 1 || parallelism < 1) {
+            throw new IllegalArgumentException("chunkSize and parallelism must be positive");
+        }
+    }
+}
@@ -15,23 +15,40 @@
  */
 package org.springframework.samples.petclinic.visits.web;
 
+import java.time.LocalDate;
 import java.util.List;
+import java.util.Optional;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Min;
 
 import io.micrometer.core.annotation.Timed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.format.annotation.DateTimeFormat.ISO;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.samples.petclinic.visits.model.Visit;
+import org.springframework.samples.petclinic.visits.model.VisitCount;
+import org.springframework.samples.petclinic.visits.model.VisitIngester;
+import org.springframework.samples.petclinic.visits.model.VisitPeriod;
 import org.springframework.samples.petclinic.visits.model.VisitRepository;
+import org.springframework.samples.petclinic.visits.model.VisitStatistics;
+import org.springframework.samples.petclinic.visits.model.VisitStatistics.Granularity;
+import org.springframework.samples.petclinic.visits.model.VisitSummary;
+import org.springframework.samples.petclinic.visits.model.VisitsByPetIdsLoader;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
 
 /**
  * @author Juergen Hoeller
@@ -47,36 +64,119 @@ class VisitResource {
 
     private static final Logger log = LoggerFactory.getLogger(VisitResource.class);
 
+    private static final String RESPOND_ASYNC = "respond-async";
+
     private final VisitRepository visitRepository;
 
-    VisitResource(VisitRepository visitRepository) {
+    private final VisitsByPetIdsLoader visitsByPetIdsLoader;
+
+    private final Optional<VisitIngester> visitIngester;
+
+    private final VisitStatistics visitStatistics;
+
+    private final TransactionTemplate transactionTemplate;
+
+    VisitResource(VisitRepository visitRepository, VisitsByPetIdsLoader visitsByPetIdsLoader,
+                  Optional<VisitIngester> visitIngester, VisitStatistics visitStatistics,
+                  PlatformTransactionManager transactionManager) {
         this.visitRepository = visitRepository;
+        this.visitsByPetIdsLoader = visitsByPetIdsLoader;
+        this.visitIngester = visitIngester;
+        this.visitStatistics = visitStatistics;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
+    /**
+     * Create a visit, or with {@code Prefer: respond-async} accept it to be written later when write-behind ingestion
+     * is enabled
+     */
     @PostMapping("owners/*/pets/{petId}/visits")
-    @ResponseStatus(HttpStatus.CREATED)
-    public Visit create(
+    public ResponseEntity<Visit> create(
         @Valid @RequestBody Visit visit,
-        @PathVariable("petId") @Min(1) int petId) {
+        @PathVariable("petId") @Min(1) int petId,
+        @RequestHeader(value = "Prefer", required = false) String prefer) {
 
         visit.setPetId(petId);
+        if (visitIngester.isPresent() && prefer != null && prefer.contains(RESPOND_ASYNC)) {
+            if (!visitIngester.get().offer(visit)) {
+                return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "1").build();
+            }
+            return ResponseEntity.accepted().header("Preference-Applied", RESPOND_ASYNC).build();
+        }
         log.info("Saving visit {}", visit);
-        return visitRepository.save(visit);
+        Visit saved = transactionTemplate.execute(status -> {
+            Visit created = visitRepository.save(visit);
+            visitStatistics.count(List.of(created));
+            return created;
+        });
+        return ResponseEntity.status(HttpStatus.CREATED).body(saved);
     }
 
+    /**
+     * Read the visits of a pet from {@code from} to {@code to} included, newest first, at most {@code limit}
+     */
     @GetMapping("owners/*/pets/{petId}/visits")
-    public List<Visit> read(@PathVariable("petId") @Min(1) int petId) {
-        return visitRepository.findByPetId(petId);
+    public List<VisitSummary> read(@PathVariable("petId") @Min(1) int petId,
+                                   @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+                                   @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+                                   @RequestParam(value = "limit", required = false) @Min(1) Integer limit) {
+        VisitPeriod period = period(from, to);
+        return visitRepository.findSummariesByPetId(petId, period.start(), period.endExclusive(),
+            period.includesUndated(), limit == null ? Limit.unlimited() : Limit.of(limit));
+    }
+
+    /**
+     * Read a visit with its full description
+     */
+    @GetMapping("owners/*/pets/{petId}/visits/{visitId}")
+    public ResponseEntity<Visit> read(@PathVariable("petId") @Min(1) int petId,
+                                      @PathVariable("visitId") @Min(1) int visitId) {
+        return ResponseEntity.of(visitRepository.findById(visitId).filter(visit -> visit.getPetId() == petId));
     }
 
+    /**
+     * Read the visits of several pets from {@code from} to {@code to} included, grouped by pet and newest first, at
+     * most {@code limit} for each pet
+     */
     @GetMapping("pets/visits")
-    public Visits read(@RequestParam("petId") List<Integer> petIds) {
-        final List<Visit> byPetIdIn = visitRepository.findByPetIdIn(petIds);
+    public Visits read(@RequestParam("petId") List<Integer> petIds,
+                       @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+                       @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to,
+                       @RequestParam(value = "limit", required = false) @Min(1) Integer limit) {
+        final List<VisitSummary> byPetIdIn = visitsByPetIdsLoader.findByPetIds(petIds, period(from, to),
+            limit == null ? Integer.MAX_VALUE : limit);
         return new Visits(byPetIdIn);
     }
 
+    /**
+     * Count the visits by day or month from {@code from} to {@code to} included, for each of the given pets or for
+     * all pets together when none is given
+     */
+    @GetMapping("pets/visits/counts")
+    public VisitCounts count(@RequestParam(value = "petId", required = false) List<Integer> petIds,
+                             @RequestParam(value = "granularity", defaultValue = "MONTH") Granularity granularity,
+                             @RequestParam(value = "from", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate from,
+                             @RequestParam(value = "to", required = false) @DateTimeFormat(iso = ISO.DATE) LocalDate to) {
+        VisitPeriod period = period(from, to);
+        return new VisitCounts(petIds == null || petIds.isEmpty()
+            ? visitStatistics.countAll(granularity, period)
+            : visitStatistics.countByPet(petIds, granularity, period));
+    }
+
+    private static VisitPeriod period(LocalDate from, LocalDate to) {
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "from must not be after to");
+        }
+        return VisitPeriod.between(from, to);
+    }
+
     record Visits(
-        List<Visit> items
+        List<VisitSummary> items
+    ) {
+    }
+
+    record VisitCounts(
+        List<VisitCount> items
     ) {
     }
 }
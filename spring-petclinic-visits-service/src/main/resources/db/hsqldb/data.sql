@@ -2,3 +2,8 @@ INSERT INTO visits VALUES (1, 7, '2013-01-01', 'rabies shot');
 INSERT INTO visits VALUES (2, 8, '2013-01-02', 'rabies shot');
 INSERT INTO visits VALUES (3, 8, '2013-01-03', 'neutered');
 INSERT INTO visits VALUES (4, 7, '2013-01-04', 'spayed');
+
+INSERT INTO visit_counts SELECT pet_id, 'day', visit_date, COUNT(*) FROM visits
+  WHERE visit_date IS NOT NULL GROUP BY pet_id, visit_date;
+INSERT INTO visit_counts SELECT pet_id, 'month', TRUNC(visit_date, 'MM'), COUNT(*) FROM visits
+  WHERE visit_date IS NOT NULL GROUP BY pet_id, TRUNC(visit_date, 'MM');
@@ -1,3 +1,4 @@
+DROP TABLE visit_counts IF EXISTS;
 DROP TABLE visits IF EXISTS;
 
 CREATE TABLE visits (
@@ -7,4 +8,14 @@ CREATE TABLE visits (
   description VARCHAR(8192)
 );
 
-CREATE INDEX visits_pet_id ON visits (pet_id);
+CREATE INDEX visits_pet_id_visit_date ON visits (pet_id, visit_date);
+
+CREATE TABLE visit_counts (
+  pet_id       INTEGER NOT NULL,
+  granularity  VARCHAR(5) NOT NULL,
+  period_start DATE NOT NULL,
+  visits       INTEGER NOT NULL,
+  PRIMARY KEY (pet_id, granularity, period_start)
+);
+
+CREATE INDEX visit_counts_granularity_period_start ON visit_counts (granularity, period_start);
@@ -2,3 +2,9 @@ INSERT IGNORE INTO visits VALUES (1, 7, '2010-03-04', 'rabies shot');
 INSERT IGNORE INTO visits VALUES (2, 8, '2011-03-04', 'rabies shot');
 INSERT IGNORE INTO visits VALUES (3, 8, '2009-06-04', 'neutered');
 INSERT IGNORE INTO visits VALUES (4, 7, '2008-09-04', 'spayed');
+
+-- Counts the visits created before visit_counts existed
+INSERT IGNORE INTO visit_counts SELECT pet_id, 'day', visit_date, COUNT(*) FROM visits
+  WHERE visit_date IS NOT NULL GROUP BY pet_id, visit_date;
+INSERT IGNORE INTO visit_counts SELECT pet_id, 'month', DATE_FORMAT(visit_date, '%Y-%m-01'), COUNT(*) FROM visits
+  WHERE visit_date IS NOT NULL GROUP BY pet_id, DATE_FORMAT(visit_date, '%Y-%m-01');
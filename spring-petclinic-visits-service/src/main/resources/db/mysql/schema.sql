@@ -8,5 +8,23 @@ CREATE TABLE IF NOT EXISTS visits (
   pet_id INT(4) UNSIGNED NOT NULL,
   visit_date DATE,
   description VARCHAR(8192),
+  INDEX(pet_id, visit_date),
   FOREIGN KEY (pet_id) REFERENCES pets(id)
 ) engine=InnoDB;
+
+-- Visits tables created before the (pet_id, visit_date) index only have the foreign key index on pet_id
+SET @visits_index = (SELECT IF(COUNT(*) = 0, 'ALTER TABLE visits ADD INDEX (pet_id, visit_date)', 'DO 0')
+  FROM information_schema.statistics
+  WHERE table_schema = DATABASE() AND table_name = 'visits' AND column_name = 'visit_date');
+PREPARE add_visits_index FROM @visits_index;
+EXECUTE add_visits_index;
+DEALLOCATE PREPARE add_visits_index;
+
+CREATE TABLE IF NOT EXISTS visit_counts (
+  pet_id INT(4) UNSIGNED NOT NULL,
+  granularity VARCHAR(5) NOT NULL,
+  period_start DATE NOT NULL,
+  visits INT UNSIGNED NOT NULL,
+  PRIMARY KEY (pet_id, granularity, period_start),
+  INDEX(granularity, period_start)
+) engine=InnoDB;
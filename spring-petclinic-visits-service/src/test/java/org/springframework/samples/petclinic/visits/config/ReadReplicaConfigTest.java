@@ -0,0 +1,129 @@
+package org.springframework.samples.petclinic.visits.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.samples.petclinic.replica.ReadReplicaDataSource;
+import org.springframework.samples.petclinic.replica.ReadReplicaTransactionManager;
+import org.springframework.samples.petclinic.replica.ReplicaLagMonitor;
+import org.springframework.samples.petclinic.visits.model.Visit;
+import org.springframework.samples.petclinic.visits.model.VisitRepository;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Routes between two in-memory HSQLDB databases: the primary initialized by the test profile and a replica holding
+ * the same sample data except for the description of visit 1.
+ */
+@SpringBootTest(properties = {
+    "petclinic.datasource.replica.url=" + ReadReplicaConfigTest.REPLICA_URL,
+    "petclinic.datasource.replica.username=sa",
+    "petclinic.datasource.replica.lag-query=SELECT seconds FROM replica_lag",
+    "petclinic.datasource.replica.check-interval=1h"
+})
+@ActiveProfiles("test")
+class ReadReplicaConfigTest {
+
+    static final String REPLICA_URL = "jdbc:hsqldb:mem:visits-replica";
+
+    private static final JdbcTemplate replica =
+        new JdbcTemplate(new SingleConnectionDataSource(REPLICA_URL, "sa", "", true));
+
+    @Autowired
+    VisitRepository visitRepository;
+
+    @Autowired
+    DataSource dataSource;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    private ReplicaLagMonitor lagMonitor;
+
+    @BeforeAll
+    static void createReplica() {
+        new ResourceDatabasePopulator(
+            new ClassPathResource("db/hsqldb/schema.sql"), new ClassPathResource("db/hsqldb/data.sql"))
+            .execute(replica.getDataSource());
+        replica.execute("CREATE TABLE replica_lag (seconds INTEGER)");
+        replica.update("INSERT INTO replica_lag VALUES (0)");
+        replica.update("UPDATE visits SET description = 'replica' WHERE id = 1");
+    }
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        lagMonitor = dataSource.unwrap(ReadReplicaDataSource.class).getLagMonitor();
+    }
+
+    @AfterEach
+    void catchUp() {
+        replica.update("UPDATE replica_lag SET seconds = 0");
+        lagMonitor.check();
+    }
+
+    @Test
+    void readsFromReplicaAndWritesToPrimary() {
+        lagMonitor.check();
+
+        assertThat(visitRepository.findById(1)).map(Visit::getDescription).hasValue("replica");
+        assertThat(ReadReplicaTransactionManager.isReadOnly()).isFalse();
+
+        Visit visit = visitRepository.findById(2).orElseThrow();
+        visit.setDescription("booster");
+        visit = visitRepository.save(visit);
+
+        assertThat(replica.queryForObject("SELECT description FROM visits WHERE id = 2", String.class))
+            .isEqualTo("rabies shot");
+        visit.setDescription("rabies shot");
+        visitRepository.save(visit);
+    }
+
+    @Test
+    void routesEachTransactionOfASessionOnItsOwn() {
+        lagMonitor.check();
+        // Like open session in view: the transactions of a request share its entity manager
+        TransactionSynchronizationManager.bindResource(entityManagerFactory,
+            new EntityManagerHolder(entityManagerFactory.createEntityManager()));
+        try {
+            assertThat(visitRepository.findById(1)).map(Visit::getDescription).hasValue("replica");
+
+            Visit visit = visitRepository.findById(3).orElseThrow();
+            visit.setDescription("neutered again");
+            visitRepository.save(visit);
+        } finally {
+            EntityManagerHolder holder =
+                (EntityManagerHolder) TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            holder.getEntityManager().close();
+        }
+
+        JdbcTemplate primary = new JdbcTemplate(dataSource);
+        assertThat(primary.queryForObject("SELECT description FROM visits WHERE id = 3", String.class))
+            .isEqualTo("neutered again");
+        assertThat(replica.queryForObject("SELECT description FROM visits WHERE id = 3", String.class))
+            .isEqualTo("neutered");
+        primary.update("UPDATE visits SET description = 'neutered' WHERE id = 3");
+    }
+
+    @Test
+    void readsFromPrimaryWhileReplicaLags() {
+        replica.update("UPDATE replica_lag SET seconds = 60");
+        lagMonitor.check();
+
+        assertThat(lagMonitor.isUsable()).isFalse();
+        assertThat(visitRepository.findById(1)).map(Visit::getDescription).hasValue("rabies shot");
+    }
+}
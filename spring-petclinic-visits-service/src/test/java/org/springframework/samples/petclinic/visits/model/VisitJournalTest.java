@@ -0,0 +1,50 @@
+package org.springframework.samples.petclinic.visits.model;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.samples.petclinic.visits.model.VisitJournal.JournaledVisit;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class VisitJournalTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void recoverVisitsAfterLastCheckpoint() throws IOException {
+        Path path = directory.resolve("visits.journal");
+        try (VisitJournal journal = new VisitJournal(path, objectMapper)) {
+            journal.append(visit(7, "first"));
+            journal.sync(journal.append(visit(7, "second")).seq());
+            journal.checkpoint(1);
+            journal.sync(journal.append(visit(8, "third")).seq());
+        }
+        Files.writeString(path, "V {\"seq\":4,\"pet", StandardOpenOption.APPEND);
+
+        try (VisitJournal journal = new VisitJournal(path, objectMapper)) {
+            assertThat(journal.recovered())
+                .extracting(JournaledVisit::seq, JournaledVisit::description)
+                .containsExactly(
+                    tuple(2L, "second"),
+                    tuple(3L, "third"));
+            assertThat(journal.append(visit(8, "fourth")).seq()).isEqualTo(4);
+            journal.checkpoint(4);
+        }
+
+        assertThat(path).isEmptyFile();
+    }
+
+    private static Visit visit(int petId, String description) {
+        return Visit.VisitBuilder.aVisit().petId(petId).description(description).build();
+    }
+}
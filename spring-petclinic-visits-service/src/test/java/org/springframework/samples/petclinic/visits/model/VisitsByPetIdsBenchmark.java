@@ -0,0 +1,107 @@
+package org.springframework.samples.petclinic.visits.model;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.visits.VisitsServiceApplication;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Compares a single {@code IN} list of all the pet ids with the chunked lookup of {@link VisitsByPetIdsLoader}, against
+ * the in-memory database of the test profile holding 4 visits for each of 10,000 pets.
+ * <p>
+ * Run with:
+ * <pre>
+ * ../mvnw test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     "-Dexec.args=-cp %classpath org.springframework.samples.petclinic.visits.model.VisitsByPetIdsBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VisitsByPetIdsBenchmark {
+
+    private static final int PETS = 10_000;
+
+    @Param({"50", "1000", "5000"})
+    int petIds;
+
+    @Param({"100", "500"})
+    int chunkSize;
+
+    @Param({"1", "4"})
+    int parallelism;
+
+    private ConfigurableApplicationContext context;
+
+    private VisitRepository visitRepository;
+
+    private VisitsByPetIdsLoader loader;
+
+    private List<Integer> ids;
+
+    @Setup(Level.Trial)
+    public void startService() {
+        context = new SpringApplicationBuilder(VisitsServiceApplication.class)
+            .web(WebApplicationType.NONE)
+            .profiles("test")
+            .properties(
+                "visits.by-pet-ids.chunk-size=" + chunkSize,
+                "visits.by-pet-ids.parallelism=" + parallelism,
+                "logging.level.root=WARN")
+            .run();
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Date date = Date.valueOf(LocalDate.of(2024, 1, 1));
+        jdbcTemplate.batchUpdate("INSERT INTO visits (pet_id, visit_date, description) VALUES (?, ?, 'checkup')",
+            IntStream.range(0, PETS * 4).mapToObj(visit -> new Object[]{1000 + visit % PETS, date}).toList());
+        visitRepository = context.getBean(VisitRepository.class);
+        loader = context.getBean(VisitsByPetIdsLoader.class);
+        ids = IntStream.range(0, petIds).map(pet -> 1000 + pet * (PETS / petIds)).boxed().toList();
+    }
+
+    @TearDown(Level.Trial)
+    public void stopService() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<VisitSummary> singleInList() {
+        return visitRepository.findSummariesByPetIdIn(ids, VisitPeriod.ALL.start(), VisitPeriod.ALL.endExclusive(), true);
+    }
+
+    @Benchmark
+    public List<VisitSummary> chunked() {
+        return loader.findByPetIds(ids);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+            .include(VisitsByPetIdsBenchmark.class.getSimpleName())
+            .build()).run();
+    }
+}
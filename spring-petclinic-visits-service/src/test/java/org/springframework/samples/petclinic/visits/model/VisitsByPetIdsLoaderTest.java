@@ -0,0 +1,33 @@
+package org.springframework.samples.petclinic.visits.model;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {"visits.by-pet-ids.chunk-size=3", "visits.by-pet-ids.parallelism=2"})
+@ActiveProfiles("test")
+class VisitsByPetIdsLoaderTest {
+
+    @Autowired
+    VisitsByPetIdsLoader loader;
+
+    @Test
+    void splitDistinctIdsIntoPaddedChunks() {
+        assertThat(loader.chunk(List.of(1, 2, 2, 3, 4, 5, 1, 6, 7)))
+            .containsExactly(List.of(1, 2, 3), List.of(4, 5, 6), List.of(7, 7, 7));
+        assertThat(loader.chunk(List.of())).isEmpty();
+    }
+
+    @Test
+    void mergeVisitsOfAllChunks() {
+        List<VisitSummary> visits = loader.findByPetIds(List.of(1, 2, 3, 4, 5, 6, 7, 8, 8, 9, 10));
+
+        assertThat(visits).extracting(VisitSummary::id).containsExactlyInAnyOrder(1, 2, 3, 4);
+        assertThat(loader.findByPetIds(List.of(8))).extracting(VisitSummary::id).containsExactlyInAnyOrder(2, 3);
+    }
+}
@@ -0,0 +1,77 @@
+package org.springframework.samples.petclinic.visits.web;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VisitPeriodTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void readVisitsOfAPeriodNewestFirst() throws Exception {
+        mvc.perform(get("/owners/*/pets/7/visits"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$[*].id", contains(4, 1)));
+        mvc.perform(get("/owners/*/pets/7/visits").param("from", "2013-01-02"))
+            .andExpect(jsonPath("$[*].id", contains(4)));
+        mvc.perform(get("/owners/*/pets/7/visits").param("to", "2013-01-01").param("limit", "1"))
+            .andExpect(jsonPath("$[*].id", contains(1)));
+        mvc.perform(get("/owners/*/pets/7/visits").param("limit", "1"))
+            .andExpect(jsonPath("$[*].id", contains(4)));
+        mvc.perform(get("/owners/*/pets/7/visits").param("from", "2013-01-04").param("to", "2013-01-01"))
+            .andExpect(status().isBadRequest());
+
+        mvc.perform(get("/pets/visits").param("petId", "8", "7").param("limit", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[*].id", contains(4, 3)));
+        mvc.perform(get("/pets/visits").param("petId", "8", "7").param("from", "2013-01-02").param("to", "2013-01-03"))
+            .andExpect(jsonPath("$.items[*].id", contains(3, 2)));
+    }
+
+    @Test
+    void readVisitsWithoutADateOnlyFromTheUnboundedPeriod() throws Exception {
+        jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (45, NULL, 'undated')");
+        jdbcTemplate.update("INSERT INTO visits (pet_id, visit_date, description) VALUES (45, DATE '2013-01-05', 'dated')");
+        try {
+            mvc.perform(get("/owners/*/pets/45/visits"))
+                .andExpect(jsonPath("$[*].description", contains("dated", "undated")));
+            mvc.perform(get("/owners/*/pets/45/visits").param("to", "2013-12-31"))
+                .andExpect(jsonPath("$[*].description", contains("dated")));
+            mvc.perform(get("/pets/visits").param("petId", "45", "7").param("limit", "2"))
+                .andExpect(jsonPath("$.items[*].description", contains("spayed", "rabies shot", "dated", "undated")));
+            mvc.perform(get("/pets/visits").param("petId", "45").param("from", "2013-01-01"))
+                .andExpect(jsonPath("$.items[*].description", contains("dated")));
+        } finally {
+            jdbcTemplate.update("DELETE FROM visits WHERE pet_id = 45");
+        }
+    }
+
+    @Test
+    void rangeScanThePetIdVisitDateIndex() {
+        List<String> plan = jdbcTemplate.queryForList("EXPLAIN PLAN FOR SELECT * FROM visits"
+            + " WHERE pet_id = 7 AND visit_date >= DATE '2013-01-02' AND visit_date < DATE '2014-01-01'"
+            + " ORDER BY visit_date DESC", String.class);
+
+        assertThat(String.join("\n", plan)).contains("VISITS_PET_ID_VISIT_DATE");
+    }
+}
@@ -5,11 +5,15 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import org.springframework.samples.petclinic.visits.model.Visit;
+import org.springframework.samples.petclinic.visits.model.VisitPeriod;
 import org.springframework.samples.petclinic.visits.model.VisitRepository;
+import org.springframework.samples.petclinic.visits.model.VisitStatistics;
+import org.springframework.samples.petclinic.visits.model.VisitSummary;
+import org.springframework.samples.petclinic.visits.model.VisitsByPetIdsLoader;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.PlatformTransactionManager;
 
 
 import static java.util.Arrays.asList;
@@ -29,23 +33,23 @@ class VisitResourceTest {
     @MockBean
     VisitRepository visitRepository;
 
+    @MockBean
+    VisitsByPetIdsLoader visitsByPetIdsLoader;
+
+    @MockBean
+    VisitStatistics visitStatistics;
+
+    @MockBean
+    PlatformTransactionManager transactionManager;
+
     @Test
     void shouldFetchVisits() throws Exception {
-        given(visitRepository.findByPetIdIn(asList(111, 222)))
+        given(visitsByPetIdsLoader.findByPetIds(asList(111, 222), VisitPeriod.ALL, Integer.MAX_VALUE))
             .willReturn(
                 asList(
-                    Visit.VisitBuilder.aVisit()
-                        .id(1)
-                        .petId(111)
-                        .build(),
-                    Visit.VisitBuilder.aVisit()
-                        .id(2)
-                        .petId(222)
-                        .build(),
-                    Visit.VisitBuilder.aVisit()
-                        .id(3)
-                        .petId(222)
-                        .build()
+                    new VisitSummary(1, 111, null, null, false),
+                    new VisitSummary(2, 222, null, null, false),
+                    new VisitSummary(3, 222, null, null, false)
                 )
             );
 
@@ -0,0 +1,63 @@
+package org.springframework.samples.petclinic.visits.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = "visits.by-pet-ids.chunk-size=1")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VisitStatisticsTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void deleteVisits() {
+        jdbcTemplate.update("DELETE FROM visits WHERE pet_id = 44");
+        jdbcTemplate.update("DELETE FROM visit_counts WHERE pet_id = 44");
+    }
+
+    @Test
+    void countVisitsFromTheRollups() throws Exception {
+        mvc.perform(get("/pets/visits/counts").param("petId", "8", "7"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.items[*].petId", contains(7, 8)))
+            .andExpect(jsonPath("$.items[*].start", contains("2013-01-01", "2013-01-01")))
+            .andExpect(jsonPath("$.items[*].visits", contains(2, 2)));
+
+        createVisit("2013-01-20");
+        createVisit("2013-01-20");
+        createVisit("2013-02-03");
+
+        mvc.perform(get("/pets/visits/counts").param("petId", "44").param("granularity", "DAY"))
+            .andExpect(jsonPath("$.items[*].start", contains("2013-01-20", "2013-02-03")))
+            .andExpect(jsonPath("$.items[*].visits", contains(2, 1)));
+        mvc.perform(get("/pets/visits/counts").param("from", "2013-01-15").param("to", "2013-02-28"))
+            .andExpect(jsonPath("$.items[*].petId").isEmpty())
+            .andExpect(jsonPath("$.items[*].start", contains("2013-01-01", "2013-02-01")))
+            .andExpect(jsonPath("$.items[*].visits", contains(6, 1)));
+    }
+
+    private void createVisit(String date) throws Exception {
+        mvc.perform(post("/owners/*/pets/44/visits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"date\":\"" + date + "\",\"description\":\"checkup\"}"))
+            .andExpect(status().isCreated());
+    }
+}
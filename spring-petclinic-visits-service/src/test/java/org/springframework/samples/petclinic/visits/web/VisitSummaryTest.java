@@ -0,0 +1,61 @@
+package org.springframework.samples.petclinic.visits.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.visits.model.VisitSummary;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class VisitSummaryTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void deleteVisits() {
+        jdbcTemplate.update("DELETE FROM visits WHERE pet_id = 42");
+        jdbcTemplate.update("DELETE FROM visit_counts WHERE pet_id = 42");
+    }
+
+    @Test
+    void listTruncatedDescriptionsAndReadFullOnePerVisit() throws Exception {
+        String description = "x".repeat(5000);
+        String created = mvc.perform(post("/owners/*/pets/42/visits")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{\"date\":\"2024-03-01\",\"description\":\"" + description + "\"}"))
+            .andExpect(status().isCreated())
+            .andReturn().getResponse().getContentAsString();
+        int id = Integer.parseInt(created.replaceAll(".*\"id\":(\\d+).*", "$1"));
+
+        mvc.perform(get("/owners/*/pets/42/visits"))
+            .andExpect(jsonPath("$[0].description").value(description.substring(0, VisitSummary.DESCRIPTION_LENGTH)))
+            .andExpect(jsonPath("$[0].descriptionTruncated").value(true))
+            .andExpect(jsonPath("$[0].date").value("2024-03-01"));
+        mvc.perform(get("/pets/visits").param("petId", "42", "8"))
+            .andExpect(jsonPath("$.items[0].description").value("neutered"))
+            .andExpect(jsonPath("$.items[0].descriptionTruncated").value(false))
+            .andExpect(jsonPath("$.items[2].descriptionTruncated").value(true));
+
+        mvc.perform(get("/owners/*/pets/42/visits/" + id))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.description").value(description));
+        mvc.perform(get("/owners/*/pets/7/visits/" + id))
+            .andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,92 @@
+package org.springframework.samples.petclinic.visits.web;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.samples.petclinic.visits.model.VisitStatistics;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doCallRealMethod;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+    "visits.ingest.write-behind=true",
+    "visits.ingest.batch-size=3",
+    "visits.ingest.flush-interval=50ms",
+    "visits.ingest.journal=target/write-behind-ingest-test.journal"
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class WriteBehindIngestTest {
+
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @MockitoSpyBean
+    VisitStatistics visitStatistics;
+
+    @AfterEach
+    void deleteVisits() {
+        jdbcTemplate.update("DELETE FROM visits WHERE pet_id = 43");
+        jdbcTemplate.update("DELETE FROM visit_counts WHERE pet_id = 43");
+    }
+
+    @Test
+    void acceptVisitsAndWriteThemInBatches() throws Exception {
+        for (int visit = 0; visit < 7; visit++) {
+            mvc.perform(createVisit("checkup " + visit).header("Prefer", "respond-async"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Preference-Applied", "respond-async"));
+        }
+        mvc.perform(createVisit("walk-in")).andExpect(status().isCreated());
+
+        awaitVisits(8);
+        assertThat(jdbcTemplate.queryForObject("SELECT visits FROM visit_counts"
+            + " WHERE pet_id = 43 AND granularity = 'month' AND period_start = DATE '2024-03-01'", Integer.class))
+            .isEqualTo(8);
+    }
+
+    @Test
+    void keepWritingAfterAnUnexpectedFailure() throws Exception {
+        doThrow(new IllegalStateException("Unexpected")).doCallRealMethod().when(AopTestUtils.<VisitStatistics>getUltimateTargetObject(visitStatistics)).count(anyList());
+
+        mvc.perform(createVisit("checkup").header("Prefer", "respond-async")).andExpect(status().isAccepted());
+        awaitVisits(1);
+        mvc.perform(createVisit("follow-up").header("Prefer", "respond-async")).andExpect(status().isAccepted());
+        awaitVisits(2);
+    }
+
+    private void awaitVisits(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (countVisits() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(countVisits()).isEqualTo(expected);
+    }
+
+    private MockHttpServletRequestBuilder createVisit(String description) {
+        return post("/owners/*/pets/43/visits")
+            .contentType(MediaType.APPLICATION_JSON)
+            .content("{\"date\":\"2024-03-01\",\"description\":\"" + description + "\"}");
+    }
+
+    private int countVisits() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM visits WHERE pet_id = 43", Integer.class);
+    }
+}